@@ -0,0 +1,87 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.flow.component.grid.Grid.Column;
+
+/**
+ * Measures how configuring the columns scales with the number of columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridColumnsBenchmark {
+
+    @Param({ "10", "100" })
+    private int columnCount;
+
+    @Benchmark
+    public Grid<String> addColumns() {
+        return createGrid();
+    }
+
+    @Benchmark
+    public Grid<String> addAndRemoveColumns() {
+        Grid<String> grid = createGrid();
+        for (Column<String> column : new ArrayList<>(grid.getColumns())) {
+            grid.removeColumn(column);
+        }
+        return grid;
+    }
+
+    @Benchmark
+    public Grid<String> joinHeaderCells() {
+        Grid<String> grid = createGrid();
+        List<Column<String>> columns = grid.getColumns();
+        // Joins the columns in pairs on the first row and in fours above it
+        HeaderRow pairs = grid.prependHeaderRow();
+        for (int i = 0; i + 1 < columns.size(); i += 2) {
+            pairs.join(columns.get(i), columns.get(i + 1));
+        }
+        HeaderRow fours = grid.prependHeaderRow();
+        for (int i = 0; i + 3 < columns.size(); i += 4) {
+            fours.join(columns.get(i), columns.get(i + 1), columns.get(i + 2),
+                    columns.get(i + 3));
+        }
+        return grid;
+    }
+
+    private Grid<String> createGrid() {
+        Grid<String> grid = new Grid<>();
+        for (int i = 0; i < columnCount; i++) {
+            grid.addColumn(item -> item).setHeader("Column " + i);
+        }
+        return grid;
+    }
+}
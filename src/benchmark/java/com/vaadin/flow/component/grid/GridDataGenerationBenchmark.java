@@ -0,0 +1,80 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.flow.component.UI;
+
+/**
+ * Measures sending a range of rows to the client: fetching the items through
+ * the data communicator and generating their JSON with the column renderers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridDataGenerationBenchmark {
+
+    @Param({ "50", "500" })
+    private int rowCount;
+
+    @Param({ "5", "50" })
+    private int columnCount;
+
+    private UI ui;
+    private Grid<Integer> grid;
+
+    @Setup
+    public void setup() {
+        List<Integer> items = IntStream.range(0, 100000).boxed()
+                .collect(Collectors.toList());
+        grid = new Grid<>();
+        grid.setItems(items);
+        for (int i = 0; i < columnCount; i++) {
+            int column = i;
+            grid.addColumn(item -> "Item " + item + " column " + column);
+        }
+        ui = new UI();
+        ui.add(grid);
+        sendRange();
+    }
+
+    @Benchmark
+    public void sendRange() {
+        grid.getDataCommunicator().reset();
+        grid.getDataCommunicator().setRequestedRange(0, rowCount);
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        ui.getInternals().dumpPendingJavaScriptInvocations();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.grid.Grid.SelectionMode;
+
+/**
+ * Measures changing one item of a large multi selection, with a selection
+ * listener registered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridMultiSelectionBenchmark {
+
+    @Param({ "1000", "100000" })
+    private int selectedCount;
+
+    private UI ui;
+    private GridMultiSelectionModel<Integer> selectionModel;
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<Integer> items = IntStream.range(0, selectedCount * 2).boxed()
+                .collect(Collectors.toList());
+        Grid<Integer> grid = new Grid<>();
+        grid.setItems(items);
+        grid.addColumn(item -> item);
+        selectionModel = (GridMultiSelectionModel<Integer>) grid
+                .setSelectionMode(SelectionMode.MULTI);
+        selectionModel.addMultiSelectionListener(event -> {
+        });
+        selectionModel.updateSelection(
+                items.stream().limit(selectedCount).collect(Collectors.toSet()),
+                Collections.emptySet());
+
+        ui = new UI();
+        ui.add(grid);
+        next = selectedCount;
+    }
+
+    @Benchmark
+    public void updateSelection() {
+        // Moves the selection forward by one item, keeping its size
+        int added = next % (selectedCount * 2);
+        int removed = (next - selectedCount) % (selectedCount * 2);
+        next++;
+        selectionModel.updateSelection(Collections.singleton(added),
+                Collections.singleton(removed));
+        ui.getInternals().dumpPendingJavaScriptInvocations();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.flow.component.grid.Grid.Column;
+import com.vaadin.flow.function.SerializableComparator;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+/**
+ * Measures sorting the items in memory with the comparator that the grid
+ * creates from its sort order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridSortingBenchmark {
+
+    @Param({ "10000", "100000" })
+    private int itemCount;
+
+    private List<Person> items;
+    private SerializableComparator<Person> comparator;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        Random random = new Random(0);
+        items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            // Few distinct names so that the second sort column is used
+            items.add(new Person("Person " + random.nextInt(100),
+                    1900 + random.nextInt(100)));
+        }
+        Grid<Person> grid = new Grid<>();
+        grid.setItems(items);
+        Column<Person> nameColumn = grid.addColumn(Person::getName, "name");
+        Column<Person> bornColumn = grid.addColumn(Person::getBorn, "born");
+
+        JsonArray sorters = Json.createArray();
+        sorters.set(0, createSorter(nameColumn, "asc"));
+        sorters.set(1, createSorter(bornColumn, "desc"));
+        // Same path as when the user sorts from the client
+        Method sortersChanged = Grid.class.getDeclaredMethod("sortersChanged",
+                JsonArray.class);
+        sortersChanged.setAccessible(true);
+        sortersChanged.invoke(grid, sorters);
+
+        comparator = grid.createSortingComparator();
+    }
+
+    @Benchmark
+    public List<Person> sort() {
+        List<Person> sorted = new ArrayList<>(items);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    @Benchmark
+    public List<Person> sortWithExtractedKeys() {
+        List<Person> sorted = new ArrayList<>(items);
+        ((SortKeyComparator<Person>) comparator).withExtractedKeys(() -> {
+            sorted.sort(comparator);
+            return sorted;
+        });
+        return sorted;
+    }
+
+    private static JsonObject createSorter(Column<?> column,
+            String direction) {
+        JsonObject sorter = Json.createObject();
+        sorter.put("path", column.getInternalId());
+        sorter.put("direction", direction);
+        return sorter;
+    }
+}
@@ -15,7 +15,10 @@
  */
 package com.vaadin.flow.component.grid;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.vaadin.flow.component.Component;
@@ -45,12 +48,24 @@ abstract class AbstractColumn<T extends AbstractColumn<T>> extends Component
     private Renderer<?> headerRenderer;
     private Renderer<?> footerRenderer;
 
+    /*
+     * The text or component that the current renderer was created from, so
+     * that setting the same text or component again doesn't render anything.
+     */
+    private Object headerContent;
+    private Object footerContent;
+
     private boolean headerRenderingScheduled;
     private boolean footerRenderingScheduled;
+    private boolean sorterUpdateScheduled;
 
     private String rawHeaderTemplate;
     private boolean sortingIndicators;
 
+    private List<Column<?>> bottomChildColumns;
+    private Set<Column<?>> bottomChildColumnSet;
+    private int bottomChildColumnsVersion;
+
     /**
      * Base constructor with the destination Grid.
      *
@@ -80,6 +95,9 @@ abstract class AbstractColumn<T extends AbstractColumn<T>> extends Component
     @Override
     public void setVisible(boolean visible) {
         getElement().setProperty("hidden", !visible);
+        if (visible) {
+            grid.requestVisibleColumns();
+        }
     }
 
     /**
@@ -95,23 +113,34 @@ abstract class AbstractColumn<T extends AbstractColumn<T>> extends Component
     }
 
     protected void setHeaderRenderer(Renderer<?> renderer) {
+        setHeaderRenderer(renderer, null);
+    }
+
+    private void setHeaderRenderer(Renderer<?> renderer, Object content) {
+        headerContent = content;
         headerRenderer = renderer;
-        scheduleHeaderRendering();
+        headerRenderingScheduled = true;
+        grid.scheduleHeaderFooterRendering(this);
     }
 
-    private void scheduleHeaderRendering() {
+    /**
+     * Renders the header and footer of this column if they have been changed
+     * since the last time, and updates the grid sorter of the header if only
+     * the sorting indicators have changed. Called by the grid once before the
+     * client response.
+     */
+    void renderHeaderAndFooter() {
         if (headerRenderingScheduled) {
-            return;
+            renderHeader();
+        } else if (sorterUpdateScheduled) {
+            updateGridSorter();
         }
-        headerRenderingScheduled = true;
-        getElement().getNode().runWhenAttached(
-                ui -> ui.beforeClientResponse(this, context -> {
-                    if (!headerRenderingScheduled) {
-                        return;
-                    }
-                    renderHeader();
-                    headerRenderingScheduled = false;
-                }));
+        if (footerRenderingScheduled) {
+            renderFooter();
+        }
+        headerRenderingScheduled = false;
+        sorterUpdateScheduled = false;
+        footerRenderingScheduled = false;
     }
 
     private Rendering<?> renderHeader() {
@@ -135,24 +164,28 @@ abstract class AbstractColumn<T extends AbstractColumn<T>> extends Component
         return rendering;
     }
 
-    private void scheduleFooterRendering() {
-        if (footerRenderingScheduled) {
+    /*
+     * Adds or removes the grid sorter of the already rendered header template
+     * without rendering the header again.
+     */
+    private void updateGridSorter() {
+        if (headerTemplate == null || rawHeaderTemplate == null) {
             return;
         }
-        footerRenderingScheduled = true;
-        getElement().getNode().runWhenAttached(
-                ui -> ui.beforeClientResponse(this, context -> {
-                    if (!footerRenderingScheduled) {
-                        return;
-                    }
-                    renderFooter();
-                    footerRenderingScheduled = false;
-                }));
+        headerTemplate.setProperty("innerHTML",
+                hasSortingIndicators() ? addGridSorter(rawHeaderTemplate)
+                        : rawHeaderTemplate);
     }
 
     protected void setFooterRenderer(Renderer<?> renderer) {
+        setFooterRenderer(renderer, null);
+    }
+
+    private void setFooterRenderer(Renderer<?> renderer, Object content) {
+        footerContent = content;
         footerRenderer = renderer;
-        scheduleFooterRendering();
+        footerRenderingScheduled = true;
+        grid.scheduleHeaderFooterRendering(this);
     }
 
     private Rendering<?> renderFooter() {
@@ -170,22 +203,46 @@ abstract class AbstractColumn<T extends AbstractColumn<T>> extends Component
     }
 
     protected void setHeaderText(String text) {
-        setHeaderRenderer(TemplateRenderer.of(HtmlUtils.escape(text)));
+        if (text != null && text.equals(headerContent)) {
+            return;
+        }
+        setHeaderRenderer(TemplateRenderer.of(HtmlUtils.escape(text)), text);
     }
 
     protected void setFooterText(String text) {
-        setFooterRenderer(TemplateRenderer.of(HtmlUtils.escape(text)));
+        if (text != null && text.equals(footerContent)) {
+            return;
+        }
+        setFooterRenderer(TemplateRenderer.of(HtmlUtils.escape(text)), text);
     }
 
     protected void setHeaderComponent(Component component) {
+        if (component != null && component == headerContent) {
+            return;
+        }
         /*
          * Uses the special renderer to take care of the vaadin-grid-sorter.
          */
-        setHeaderRenderer(new GridSorterComponentRenderer<>(this, component));
+        setHeaderRenderer(new GridSorterComponentRenderer<>(this, component),
+                component);
     }
 
     protected void setFooterComponent(Component component) {
-        setFooterRenderer(new ComponentRenderer<>(() -> component));
+        if (component != null && component == footerContent) {
+            return;
+        }
+        setFooterRenderer(new ComponentRenderer<>(() -> component), component);
+    }
+
+    /**
+     * Gets the text of the header of this column, if the header was set with
+     * {@link #setHeaderText(String)}.
+     *
+     * @return the header text, or {@code null} if the header has no text
+     */
+    String getHeaderText() {
+        return headerContent instanceof String ? (String) headerContent
+                : null;
     }
 
     protected Renderer<?> getHeaderRenderer() {
@@ -225,7 +282,8 @@ abstract class AbstractColumn<T extends AbstractColumn<T>> extends Component
             return;
         }
         this.sortingIndicators = sortingIndicators;
-        scheduleHeaderRendering();
+        sorterUpdateScheduled = true;
+        grid.scheduleHeaderFooterRendering(this);
     }
 
     protected boolean hasSortingIndicators() {
@@ -269,6 +327,31 @@ abstract class AbstractColumn<T extends AbstractColumn<T>> extends Component
      * @return the Column children of this component
      */
     protected List<Column<?>> getBottomChildColumns() {
+        updateBottomChildColumns();
+        return bottomChildColumns;
+    }
+
+    /**
+     * Gets recursively the child components of this component that are
+     * instances of Column, as a set that compares the columns by identity.
+     *
+     * @return the Column children of this component
+     */
+    Set<Column<?>> getBottomChildColumnSet() {
+        updateBottomChildColumns();
+        return bottomChildColumnSet;
+    }
+
+    /*
+     * The bottom child columns are cached until the column structure of the
+     * grid changes.
+     */
+    private void updateBottomChildColumns() {
+        int version = grid.getColumnStructureVersion();
+        if (bottomChildColumns != null
+                && bottomChildColumnsVersion == version) {
+            return;
+        }
         List<Column<?>> columnChildren = getChildren()
                 .filter(child -> child instanceof Column<?>)
                 .map(child -> (Column<?>) child).collect(Collectors.toList());
@@ -278,7 +361,13 @@ abstract class AbstractColumn<T extends AbstractColumn<T>> extends Component
                         .flatMap(child -> ((ColumnGroup) child)
                                 .getBottomChildColumns().stream())
                         .collect(Collectors.toList()));
-        return columnChildren;
+
+        Set<Column<?>> columnSet = Collections
+                .newSetFromMap(new IdentityHashMap<>());
+        columnSet.addAll(columnChildren);
+        bottomChildColumns = Collections.unmodifiableList(columnChildren);
+        bottomChildColumnSet = Collections.unmodifiableSet(columnSet);
+        bottomChildColumnsVersion = version;
     }
 
 }
@@ -15,13 +15,17 @@
  */
 package com.vaadin.flow.component.grid;
 
+import java.io.Serializable;
+import java.util.AbstractSet;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.vaadin.flow.component.AbstractField.ComponentValueChangeEvent;
 import com.vaadin.flow.component.ComponentEventListener;
@@ -48,9 +52,23 @@ import elemental.json.JsonObject;
 public abstract class AbstractGridMultiSelectionModel<T>
         extends AbstractGridExtension<T> implements GridMultiSelectionModel<T> {
 
-    private final Set<T> selected;
+    private Set<T> selected;
+    /*
+     * Read-only copy of the selection handed out by getSelectedItems(). It is
+     * built lazily and dropped whenever the selection changes, so repeated
+     * calls between changes don't copy the whole selection again.
+     */
+    private Set<T> selectedSnapshot;
+    /*
+     * When all items are selected with the LAZY_SELECT_ALL storage, the
+     * selection is stored inverted: every item is selected except the ones in
+     * deselectedItems.
+     */
+    private boolean allSelected;
+    private final ItemIdentifierSet<T> deselectedItems;
     private final GridSelectionColumn selectionColumn;
     private SelectAllCheckboxVisibility selectAllCheckBoxVisibility;
+    private SelectionStorage selectionStorage;
 
     /**
      * Constructor for passing a reference of the grid to this implementation.
@@ -62,6 +80,9 @@ public abstract class AbstractGridMultiSelectionModel<T>
     public AbstractGridMultiSelectionModel(Grid<T> grid) {
         super(grid);
         selected = new LinkedHashSet<>();
+        selectionStorage = SelectionStorage.ITEMS;
+        deselectedItems = new ItemIdentifierSet<>(
+                () -> getGrid().getDataProvider());
         selectionColumn = new GridSelectionColumn(this::clientSelectAll,
                 this::clientDeselectAll);
         selectAllCheckBoxVisibility = SelectAllCheckboxVisibility.DEFAULT;
@@ -86,11 +107,14 @@ public abstract class AbstractGridMultiSelectionModel<T>
         if (isSelected(item)) {
             return;
         }
-        Set<T> oldSelection = new LinkedHashSet<>(selected);
-        boolean added = selected.add(item);
+        Set<T> previousSnapshot = selectedSnapshot;
+        boolean added = allSelected ? deselectedItems.remove(item)
+                : selected.add(item);
         if (added) {
-            fireSelectionEvent(new MultiSelectionEvent<>(getGrid(),
-                    getGrid().asMultiSelect(), oldSelection, true));
+            selectedSnapshot = null;
+            fireSelectionChange(previousSnapshot, Collections.singleton(item),
+                    Collections.emptySet(), true);
+            updateSelectAllCheckboxState();
         }
     }
 
@@ -99,11 +123,13 @@ public abstract class AbstractGridMultiSelectionModel<T>
         if (!isSelected(item)) {
             return;
         }
-        Set<T> oldSelection = new LinkedHashSet<>(selected);
-        boolean removed = selected.remove(item);
+        Set<T> previousSnapshot = selectedSnapshot;
+        boolean removed = allSelected ? deselectedItems.add(item)
+                : selected.remove(item);
         if (removed) {
-            fireSelectionEvent(new MultiSelectionEvent<>(getGrid(),
-                    getGrid().asMultiSelect(), oldSelection, true));
+            selectedSnapshot = null;
+            fireSelectionChange(previousSnapshot, Collections.emptySet(),
+                    Collections.singleton(item), true);
         }
         selectionColumn.setSelectAllCheckboxState(false);
     }
@@ -111,15 +137,21 @@ public abstract class AbstractGridMultiSelectionModel<T>
     @Override
     public Set<T> getSelectedItems() {
         /*
-         * A new LinkedHashSet is created to avoid
-         * ConcurrentModificationExceptions when changing the selection during
-         * an iteration
+         * A copy is returned to avoid ConcurrentModificationExceptions when
+         * changing the selection during an iteration. The copy is reused until
+         * the selection changes.
          */
-        return Collections.unmodifiableSet(new LinkedHashSet<>(selected));
+        if (selectedSnapshot == null) {
+            selectedSnapshot = Collections.unmodifiableSet(copySelection());
+        }
+        return selectedSnapshot;
     }
 
     @Override
     public Optional<T> getFirstSelectedItem() {
+        if (allSelected) {
+            return getSelectedItems().stream().findFirst();
+        }
         return selected.stream().findFirst();
     }
 
@@ -148,18 +180,25 @@ public abstract class AbstractGridMultiSelectionModel<T>
         selectionColumn.setSelectAllCheckboxState(false);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * With the {@link SelectionStorage#LAZY_SELECT_ALL} selection storage, the
+     * items are not fetched from the data provider. Instead, all items are
+     * considered selected until they are explicitly deselected.
+     */
     @Override
     public void selectAll() {
-        updateSelection(
-                getGrid().getDataCommunicator().getDataProvider()
-                        .fetch(new Query<>()).collect(Collectors.toSet()),
-                Collections.emptySet());
-        selectionColumn.setSelectAllCheckboxState(true);
+        doSelectAll(false);
     }
 
     @Override
     public void deselectAll() {
-        updateSelection(Collections.emptySet(), getSelectedItems());
+        if (allSelected) {
+            doDeselectAll(false);
+        } else {
+            updateSelection(Collections.emptySet(), getSelectedItems());
+        }
         selectionColumn.setSelectAllCheckboxState(false);
     }
 
@@ -172,7 +211,10 @@ public abstract class AbstractGridMultiSelectionModel<T>
 
     @Override
     public boolean isSelected(T item) {
-        return getSelectedItems().contains(item);
+        if (allSelected) {
+            return !deselectedItems.contains(item);
+        }
+        return selected.contains(item);
     }
 
     @Override
@@ -255,8 +297,9 @@ public abstract class AbstractGridMultiSelectionModel<T>
     public boolean isSelectAllCheckboxVisible() {
         switch (selectAllCheckBoxVisibility) {
         case DEFAULT:
-            return getGrid().getDataCommunicator().getDataProvider()
-                    .isInMemory();
+            return selectionStorage == SelectionStorage.LAZY_SELECT_ALL
+                    || getGrid().getDataCommunicator().getDataProvider()
+                            .isInMemory();
         case HIDDEN:
             return false;
         case VISIBLE:
@@ -285,6 +328,34 @@ public abstract class AbstractGridMultiSelectionModel<T>
         return selectionColumn.isFrozen();
     }
 
+    @Override
+    public void setSelectionStorage(SelectionStorage selectionStorage) {
+        Objects.requireNonNull(selectionStorage,
+                "selection storage cannot be null");
+        if (this.selectionStorage == selectionStorage) {
+            return;
+        }
+        Set<T> newSelected = createSelectionSet(selectionStorage);
+        if (allSelected) {
+            // The other storages keep the selected items themselves
+            newSelected.addAll(getSelectedItems());
+            allSelected = false;
+            deselectedItems.clear();
+        } else {
+            newSelected.addAll(selected);
+        }
+        selected = newSelected;
+        selectedSnapshot = null;
+        this.selectionStorage = selectionStorage;
+        selectionColumn
+                .setSelectAllCheckBoxVisibility(isSelectAllCheckboxVisible());
+    }
+
+    @Override
+    public SelectionStorage getSelectionStorage() {
+        return selectionStorage;
+    }
+
     /**
      * Method for handling the firing of selection events.
      *
@@ -294,16 +365,54 @@ public abstract class AbstractGridMultiSelectionModel<T>
     protected abstract void fireSelectionEvent(
             SelectionEvent<Grid<T>, T> event);
 
+    /**
+     * Gets whether there is anyone listening to the selection events of this
+     * model. When this returns {@code false}, no selection event is created
+     * and the old selection is not copied at all.
+     * <p>
+     * The default implementation always returns {@code true}. Implementations
+     * that fire their events to the grid should override this to check for
+     * the listeners registered to the grid.
+     *
+     * @return {@code true} if selection events should be fired,
+     *         {@code false} if there are no listeners for them
+     */
+    protected boolean hasSelectionListeners() {
+        return true;
+    }
+
+    private Set<T> createSelectionSet(SelectionStorage storage) {
+        switch (storage) {
+        case ITEMS:
+            return new LinkedHashSet<>();
+        case IDENTIFIERS:
+        case LAZY_SELECT_ALL:
+            return new ItemIdentifierSet<>(() -> getGrid().getDataProvider());
+        default:
+            throw new IllegalStateException(String.format(
+                    "Selection storage is set to an unsupported value: %s",
+                    storage));
+        }
+    }
+
+    private Set<T> copySelection() {
+        if (allSelected) {
+            return new ItemsExcludingSet<>(getGrid().getDataProvider(),
+                    deselectedItems.copy());
+        }
+        if (selected instanceof ItemIdentifierSet) {
+            // Copies only the identifiers, the items are fetched on demand
+            return ((ItemIdentifierSet<T>) selected).copy();
+        }
+        return new LinkedHashSet<>(selected);
+    }
+
     private void clientSelectAll() {
         if (!isSelectAllCheckboxVisible()) {
             // ignore event if the checkBox was meant to be hidden
             return;
         }
-        doUpdateSelection(
-                getGrid().getDataCommunicator().getDataProvider()
-                        .fetch(new Query<>()).collect(Collectors.toSet()),
-                Collections.emptySet(), true);
-        selectionColumn.setSelectAllCheckboxState(true);
+        doSelectAll(true);
     }
 
     private void clientDeselectAll() {
@@ -311,37 +420,152 @@ public abstract class AbstractGridMultiSelectionModel<T>
             // ignore event if the checkBox was meant to be hidden
             return;
         }
-        doUpdateSelection(Collections.emptySet(), getSelectedItems(), true);
+        if (allSelected) {
+            doDeselectAll(true);
+        } else {
+            doUpdateSelection(Collections.emptySet(), getSelectedItems(),
+                    true);
+        }
         selectionColumn.setSelectAllCheckboxState(false);
     }
 
+    private void doSelectAll(boolean userOriginated) {
+        if (selectionStorage != SelectionStorage.LAZY_SELECT_ALL) {
+            doUpdateSelection(
+                    getGrid().getDataCommunicator().getDataProvider()
+                            .fetch(new Query<>()).collect(Collectors.toSet()),
+                    Collections.emptySet(), userOriginated);
+            selectionColumn.setSelectAllCheckboxState(true);
+            return;
+        }
+        if (allSelected && deselectedItems.idCount() == 0) {
+            selectionColumn.setSelectAllCheckboxState(true);
+            return;
+        }
+        Set<T> oldSelection = takeSelection();
+        allSelected = true;
+
+        // Only the rows that the client has are sent again
+        getGrid().getDataCommunicator().reset();
+
+        // The added items are derived from the old selection on demand
+        fireSelectionChange(oldSelection, null, Collections.emptySet(),
+                userOriginated);
+        selectionColumn.setSelectAllCheckboxState(true);
+    }
+
+    private void doDeselectAll(boolean userOriginated) {
+        Set<T> oldSelection = takeSelection();
+        allSelected = false;
+
+        getGrid().getDataCommunicator().reset();
+
+        fireSelectionChange(oldSelection, Collections.emptySet(),
+                oldSelection, userOriginated);
+    }
+
+    /*
+     * Empties the selection and returns the old selection. The sets holding
+     * the old selection are handed over to the returned set instead of being
+     * copied, and new empty sets are taken into use.
+     */
+    private Set<T> takeSelection() {
+        Set<T> oldSelection;
+        if (selectedSnapshot != null) {
+            oldSelection = selectedSnapshot;
+        } else if (allSelected) {
+            oldSelection = Collections.unmodifiableSet(new ItemsExcludingSet<>(
+                    getGrid().getDataProvider(), deselectedItems.copy()));
+        } else {
+            oldSelection = Collections.unmodifiableSet(selected);
+            selected = createSelectionSet(selectionStorage);
+        }
+        selected.clear();
+        deselectedItems.clear();
+        selectedSnapshot = null;
+        return oldSelection;
+    }
+
     private void doUpdateSelection(Set<T> addedItems, Set<T> removedItems,
             boolean userOriginated) {
         addedItems.removeIf(removedItems::remove);
-        if (selected.containsAll(addedItems)
+        if (allSelected) {
+            if (Collections.disjoint(deselectedItems, addedItems)
+                    && deselectedItems.containsAll(removedItems)) {
+                return;
+            }
+        } else if (selected.containsAll(addedItems)
                 && Collections.disjoint(selected, removedItems)) {
             return;
         }
-        Set<T> oldSelection = new LinkedHashSet<>(selected);
-        selected.removeAll(removedItems);
-        selected.addAll(addedItems);
+        Set<T> previousSnapshot = selectedSnapshot;
+        Set<T> actuallyAdded = new LinkedHashSet<>();
+        Set<T> actuallyRemoved = new LinkedHashSet<>();
+        for (T item : removedItems) {
+            if (allSelected ? deselectedItems.add(item)
+                    : selected.remove(item)) {
+                actuallyRemoved.add(item);
+            }
+        }
+        for (T item : addedItems) {
+            if (allSelected ? deselectedItems.remove(item)
+                    : selected.add(item)) {
+                actuallyAdded.add(item);
+            }
+        }
+        selectedSnapshot = null;
 
         sendAddedItems(addedItems);
         sendRemovedItems(removedItems);
 
-        fireSelectionEvent(new MultiSelectionEvent<>(getGrid(),
-                getGrid().asMultiSelect(), oldSelection, userOriginated));
+        fireSelectionChange(previousSnapshot, actuallyAdded, actuallyRemoved,
+                userOriginated);
         if (!removedItems.isEmpty()) {
             selectionColumn.setSelectAllCheckboxState(false);
+        } else {
+            updateSelectAllCheckboxState();
+        }
+    }
+
+    /*
+     * Checks the select all checkbox again when all the items that were
+     * deselected after selecting all have been selected again.
+     */
+    private void updateSelectAllCheckboxState() {
+        if (allSelected && deselectedItems.idCount() == 0) {
+            selectionColumn.setSelectAllCheckboxState(true);
+        }
+    }
+
+    /*
+     * Fires a selection event for a change whose added and removed items are
+     * already known. The new selection is captured as a read-only snapshot
+     * when the event is fired, so listeners that change the selection don't
+     * affect what the later listeners see. The previous snapshot is used as
+     * the old selection when one exists; otherwise the old selection is
+     * derived from the new snapshot on demand, so nothing is copied for it up
+     * front. Added items that are not known, given as null, are derived from
+     * the old and new selection on demand.
+     */
+    private void fireSelectionChange(Set<T> previousSnapshot, Set<T> added,
+            Set<T> removed, boolean userOriginated) {
+        if (!hasSelectionListeners()) {
+            return;
         }
+        Set<T> newSelection = getSelectedItems();
+        fireSelectionEvent(new SelectionChangeEvent<>(getGrid(),
+                getGrid().asMultiSelect(), previousSnapshot, newSelection,
+                added, removed, userOriginated));
     }
 
+    /*
+     * The client updates the selected state of its cached rows from the keys,
+     * so the items don't need to be refreshed one by one.
+     */
     private void sendAddedItems(Set<T> addedItems) {
         if (addedItems.isEmpty()) {
             return;
         }
-
-        addedItems.forEach(getGrid().getDataCommunicator()::refresh);
         getGrid().doClientSideSelection(addedItems);
     }
 
@@ -349,8 +573,111 @@ public abstract class AbstractGridMultiSelectionModel<T>
         if (removedItems.isEmpty()) {
             return;
         }
-
-        removedItems.forEach(getGrid().getDataCommunicator()::refresh);
         getGrid().doClientSideDeselection(removedItems);
     }
+
+    /**
+     * Multi selection event that knows its added and removed items, so they
+     * don't need to be computed by comparing the old and new selection. The
+     * new selection is the snapshot taken when the event was fired, and the
+     * old selection is derived from it when not given.
+     *
+     * @param <T>
+     *            the grid type
+     */
+    private static class SelectionChangeEvent<T>
+            extends MultiSelectionEvent<Grid<T>, T> {
+
+        private final Set<T> value;
+        private Set<T> added;
+        private final Set<T> removed;
+        private Set<T> oldSelection;
+
+        SelectionChangeEvent(Grid<T> grid, MultiSelect<Grid<T>, T> source,
+                Set<T> previousSnapshot, Set<T> newSelection, Set<T> added,
+                Set<T> removed, boolean userOriginated) {
+            super(grid, source, previousSnapshot, userOriginated);
+            this.value = newSelection;
+            this.oldSelection = previousSnapshot;
+            this.added = added == null ? null
+                    : Collections.unmodifiableSet(added);
+            this.removed = Collections.unmodifiableSet(removed);
+        }
+
+        @Override
+        public Set<T> getValue() {
+            return value;
+        }
+
+        @Override
+        public Set<T> getOldValue() {
+            if (oldSelection == null) {
+                oldSelection = new PreviousSelectionView<>(value, added,
+                        removed);
+            }
+            return oldSelection;
+        }
+
+        @Override
+        public Set<T> getOldSelection() {
+            return Collections.unmodifiableSet(getOldValue());
+        }
+
+        @Override
+        public Set<T> getAddedSelection() {
+            if (added == null) {
+                Set<T> old = getOldValue();
+                added = Collections.unmodifiableSet(value.stream()
+                        .filter(item -> !old.contains(item))
+                        .collect(Collectors.toCollection(LinkedHashSet::new)));
+            }
+            return added;
+        }
+
+        @Override
+        public Set<T> getRemovedSelection() {
+            return removed;
+        }
+    }
+
+    /**
+     * Read-only view of the selection before a change, defined by the
+     * selection after the change and the added and removed items. The items
+     * that are still selected are iterated first, in their current order,
+     * followed by the removed items.
+     *
+     * @param <T>
+     *            the item type
+     */
+    private static class PreviousSelectionView<T> extends AbstractSet<T>
+            implements Serializable {
+
+        private final Set<T> current;
+        private final Set<T> added;
+        private final Set<T> removed;
+
+        PreviousSelectionView(Set<T> current, Set<T> added, Set<T> removed) {
+            this.current = current;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return removed.contains(o)
+                    || (current.contains(o) && !added.contains(o));
+        }
+
+        @Override
+        public int size() {
+            return current.size() - added.size() + removed.size();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Stream.concat(
+                    current.stream().filter(item -> !added.contains(item)),
+                    removed.stream()).iterator();
+        }
+    }
 }
@@ -20,9 +20,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -91,6 +94,12 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
     protected ColumnLayer layer;
     protected List<CELL> cells;
 
+    /*
+     * The cells by their column components, built when needed and dropped
+     * whenever the cells or their columns change.
+     */
+    private IdentityHashMap<AbstractColumn<?>, CELL> cellsByColumn;
+
     private SerializableFunction<AbstractColumn<?>, CELL> cellCtor;
 
     AbstractRow(ColumnLayer layer, SerializableFunction<AbstractColumn<?>, CELL> cellCtor) {
@@ -123,20 +132,23 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
         IntStream.range(0, columns.size()).forEach(i -> {
             cells.get(i).setColumn(columns.get(i));
         });
+        cellsByColumn = null;
     }
 
     protected void addCell(int index, AbstractColumn<?> column) {
         cells.add(index, cellCtor.apply(column));
+        cellsByColumn = null;
     }
 
     protected void removeCell(AbstractColumn<?> columnComponent) {
-        CELL cellToRemove = cells.stream()
-                .filter(cell -> cell.getColumn().equals(columnComponent))
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException(
-                        "removeCell() should never be called for a column component "
-                                + "that doesn't have a corresponding cell in this row."));
+        CELL cellToRemove = getCellsByColumn().get(columnComponent);
+        if (cellToRemove == null) {
+            throw new IllegalStateException(
+                    "removeCell() should never be called for a column component "
+                            + "that doesn't have a corresponding cell in this row.");
+        }
         cells.remove(cellToRemove);
+        cellsByColumn = null;
     }
 
     /**
@@ -162,18 +174,26 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
     }
 
     private CELL getCellFor(AbstractColumn<?> column) {
-        return getCells().stream().filter(cell -> cell.getColumn() == column)
-                .findFirst().orElseGet(() -> {
-                    Optional<Component> parent = column.getParent();
-                    if (parent.isPresent()
-                            && parent.get() instanceof AbstractColumn) {
-                        return getCellFor((AbstractColumn<?>) parent.get());
-                    } else {
-                        throw new IllegalArgumentException(
-                                "Cannot find a cell from this row that would "
-                                        + "correspond to the given column");
-                    }
-                });
+        CELL cell = getCellsByColumn().get(column);
+        if (cell != null) {
+            return cell;
+        }
+        Optional<Component> parent = column.getParent();
+        if (parent.isPresent() && parent.get() instanceof AbstractColumn) {
+            return getCellFor((AbstractColumn<?>) parent.get());
+        } else {
+            throw new IllegalArgumentException(
+                    "Cannot find a cell from this row that would "
+                            + "correspond to the given column");
+        }
+    }
+
+    private Map<AbstractColumn<?>, CELL> getCellsByColumn() {
+        if (cellsByColumn == null) {
+            cellsByColumn = new IdentityHashMap<>();
+            cells.forEach(cell -> cellsByColumn.put(cell.getColumn(), cell));
+        }
+        return cellsByColumn;
     }
 
     /**
@@ -259,18 +279,23 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
         if (cells.size() < 2) {
             throw new IllegalArgumentException("Cannot join less than 2 cells");
         }
-        if (!this.cells.containsAll(cells)) {
+        Map<CELL, Integer> cellIndexes = new IdentityHashMap<>();
+        for (int i = 0; i < this.cells.size(); i++) {
+            cellIndexes.put(this.cells.get(i), i);
+        }
+        if (!cellIndexes.keySet().containsAll(cells)) {
             throw new IllegalArgumentException(
                     "Cannot join cells that don't belong to this row");
         }
 
-        List<CELL> sortedCells = cells.stream().sorted((c1, c2) -> Integer
-                .compare(this.cells.indexOf(c1), this.cells.indexOf(c2)))
+        List<CELL> sortedCells = cells.stream()
+                .sorted((c1, c2) -> Integer.compare(cellIndexes.get(c1),
+                        cellIndexes.get(c2)))
                 .collect(Collectors.toList());
 
-        int cellInsertIndex = this.cells.indexOf(sortedCells.get(0));
+        int cellInsertIndex = cellIndexes.get(sortedCells.get(0));
         IntStream.range(0, sortedCells.size()).forEach(i -> {
-            if (this.cells.indexOf(sortedCells.get(i)) != cellInsertIndex + i) {
+            if (cellIndexes.get(sortedCells.get(i)) != cellInsertIndex + i) {
                 throw new IllegalArgumentException(
                         "Cannot join cells that are not adjacent");
             }
@@ -279,9 +304,9 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
         List<AbstractColumn<?>> columnsToJoin = sortedCells.stream()
                 .map(CELL::getColumn).collect(Collectors.toList());
 
-        List<Column<?>> bottomColumnsToJoin = columnsToJoin.stream()
-                .flatMap(col -> col.getBottomChildColumns().stream())
-                .collect(Collectors.toList());
+        Set<Column<?>> bottomColumnsToJoin = newIdentitySet();
+        columnsToJoin.forEach(col -> bottomColumnsToJoin
+                .addAll(col.getBottomChildColumns()));
 
         List<ColumnLayer> layers = grid.getColumnLayers();
 
@@ -307,14 +332,14 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
      * row could be inserted with the given columns joined.
      */
     private int findFirstPossibleInsertIndex(
-            List<Column<?>> bottomColumnsToJoin, List<ColumnLayer> layers) {
+            Set<Column<?>> bottomColumnsToJoin, List<ColumnLayer> layers) {
 
         for (int i = layers.indexOf(layer) + 1; i < layers.size(); i++) {
             ColumnLayer possibleParentLayer = layers.get(i);
 
             boolean hasCommonParentColumnForColumnsToJoin = possibleParentLayer
                     .getColumns().stream()
-                    .anyMatch(column -> column.getBottomChildColumns()
+                    .anyMatch(column -> column.getBottomChildColumnSet()
                             .containsAll(bottomColumnsToJoin));
             if (hasCommonParentColumnForColumnsToJoin) {
                 return i;
@@ -351,18 +376,24 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
         ColumnGroup group = new ColumnGroup(layer.getGrid(), childColumns);
 
         parent.insertChild(elementInsertIndex, group.getElement());
+        layer.getGrid().invalidateColumns();
         layer.addColumn(cellInsertIndex, group);
 
-        layer.getColumns().removeAll(columnsToJoin);
+        Set<AbstractColumn<?>> columnsToRemove = newIdentitySet();
+        columnsToRemove.addAll(columnsToJoin);
+        layer.getColumns().removeIf(columnsToRemove::contains);
 
-        this.cells.removeAll(cellsToJoin);
+        Set<CELL> cellsToRemove = newIdentitySet();
+        cellsToRemove.addAll(cellsToJoin);
+        this.cells.removeIf(cellsToRemove::contains);
+        cellsByColumn = null;
 
         return this.cells.get(cellInsertIndex);
     }
 
     private CELL moveColumnLayerAndJoinCells(Collection<CELL> cellsToJoin,
             List<AbstractColumn<?>> columnsToJoin,
-            List<Column<?>> bottomColumnsToJoin, List<ColumnLayer> layers,
+            Set<Column<?>> bottomColumnsToJoin, List<ColumnLayer> layers,
             int layerInsertIndex, Grid<?> grid) {
         grid.removeColumnLayer(layer);
         layerInsertIndex--;
@@ -372,18 +403,25 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
                 .filter(col -> bottomColumnsToJoin
                         .containsAll(col.getBottomChildColumns()))
                 .collect(Collectors.toList());
+        Set<AbstractColumn<?>> childColumnSet = newIdentitySet();
+        childColumnSet.addAll(childColumns);
 
+        Set<AbstractColumn<?>> columnsToJoinSet = newIdentitySet();
+        columnsToJoinSet.addAll(columnsToJoin);
         List<AbstractColumn<?>> newColumns = new ArrayList<AbstractColumn<?>>();
         Iterator<AbstractColumn<?>> leftColumns = layer.getColumns().stream()
-                .filter(column -> !columnsToJoin.contains(column)).iterator();
+                .filter(column -> !columnsToJoinSet.contains(column))
+                .iterator();
 
+        Set<CELL> cellsToJoinSet = newIdentitySet();
+        cellsToJoinSet.addAll(cellsToJoin);
         ArrayList<CELL> newCells = new ArrayList<>();
         Iterator<CELL> leftCells = this.cells.stream()
-                .filter(cell -> !cellsToJoin.contains(cell)).iterator();
+                .filter(cell -> !cellsToJoinSet.contains(cell)).iterator();
 
         CELL newCell = null;
         for (AbstractColumn<?> col : lowerLayer.getColumns()) {
-            if (childColumns.contains(col)) {
+            if (childColumnSet.contains(col)) {
                 if (newCell == null) {
                     ColumnGroup groupForNewCell = ColumnGroupHelpers
                             .wrapInColumnGroup(grid, childColumns);
@@ -408,6 +446,7 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
         ColumnLayer newLayer = grid.insertColumnLayer(layerInsertIndex,
                 newColumns);
         this.cells = newCells;
+        cellsByColumn = null;
         if (layer.isHeaderRow()) {
             newLayer.setHeaderRow(layer.asHeaderRow());
         }
@@ -423,4 +462,8 @@ abstract class AbstractRow<CELL extends AbstractCell> implements Serializable {
      * @return whether this is the outmost row
      */
     protected abstract boolean isOutmostRow();
+
+    private static <E> Set<E> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
 }
@@ -62,6 +62,7 @@ class ColumnGroupHelpers {
         for (int i = 1; i < columns.length; i++) {
             group.getElement().appendChild(columns[i].getElement());
         }
+        grid.invalidateColumns();
         return group;
     }
 
@@ -101,6 +102,7 @@ class ColumnGroupHelpers {
 
         ColumnGroup group = new ColumnGroup(grid, column);
         parent.insertChild(index, group.getElement());
+        grid.invalidateColumns();
 
         return group;
     }
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.vaadin.flow.component.grid.Grid.Column;
+import com.vaadin.flow.data.provider.DataGenerator;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.function.SerializableSupplier;
+
+import elemental.json.JsonObject;
+
+/**
+ * Keeps track of the columns whose data is sent to the client when a grid
+ * sends only the data of the columns that are visible on the client, and of
+ * the items whose data has been sent, so that the data of columns that become
+ * visible can be sent for those items.
+ * <p>
+ * The columns that the client reports visible and the given number of
+ * columns on each side of those are rendered. The columns on each side are
+ * counted in the order the client shows the columns in, skipping hidden
+ * columns. The data of all columns is
+ * rendered until the client has reported the visible columns.
+ *
+ * @author Vaadin Ltd.
+ * @param <T>
+ *            the item type
+ */
+class ColumnVirtualizer<T> implements DataGenerator<T> {
+
+    /**
+     * The default number of columns rendered on each side of the visible
+     * columns.
+     */
+    static final int DEFAULT_BUFFER = 5;
+
+    private final SerializableSupplier<DataProvider<T, ?>> dataProviderSupplier;
+    private final Map<Object, T> activeItems = new LinkedHashMap<>();
+
+    private Set<Column<?>> renderedColumns;
+    private int buffer = DEFAULT_BUFFER;
+
+    /**
+     * Data generator of a column, which generates data only when the column is
+     * rendered.
+     */
+    private class ColumnDataGenerator implements DataGenerator<T> {
+        private final Column<?> column;
+        private final DataGenerator<T> dataGenerator;
+
+        private ColumnDataGenerator(Column<?> column,
+                DataGenerator<T> dataGenerator) {
+            this.column = column;
+            this.dataGenerator = dataGenerator;
+        }
+
+        @Override
+        public void generateData(T item, JsonObject jsonObject) {
+            if (isRendered(column)) {
+                dataGenerator.generateData(item, jsonObject);
+            }
+        }
+
+        @Override
+        public void refreshData(T item) {
+            dataGenerator.refreshData(item);
+        }
+
+        @Override
+        public void destroyData(T item) {
+            dataGenerator.destroyData(item);
+        }
+
+        @Override
+        public void destroyAllData() {
+            dataGenerator.destroyAllData();
+        }
+    }
+
+    /**
+     * Creates a new virtualizer that renders all columns.
+     *
+     * @param dataProviderSupplier
+     *            supplier for the current data provider, used for identifying
+     *            the items, not {@code null}
+     */
+    ColumnVirtualizer(
+            SerializableSupplier<DataProvider<T, ?>> dataProviderSupplier) {
+        this.dataProviderSupplier = dataProviderSupplier;
+    }
+
+    @Override
+    public void generateData(T item, JsonObject jsonObject) {
+        activeItems.put(getId(item), item);
+    }
+
+    @Override
+    public void destroyData(T item) {
+        activeItems.remove(getId(item));
+    }
+
+    @Override
+    public void destroyAllData() {
+        activeItems.clear();
+    }
+
+    /**
+     * Wraps the data generator of a column so that it generates data only
+     * when the column is rendered.
+     *
+     * @param column
+     *            the column, not {@code null}
+     * @param dataGenerator
+     *            the data generator of the column, not {@code null}
+     * @return the wrapping data generator
+     */
+    DataGenerator<T> wrap(Column<?> column, DataGenerator<T> dataGenerator) {
+        return new ColumnDataGenerator(column, dataGenerator);
+    }
+
+    /**
+     * Gets whether the data of the given column is rendered.
+     *
+     * @param column
+     *            the column to check
+     * @return {@code true} if the data of the column is rendered,
+     *         {@code false} otherwise
+     */
+    boolean isRendered(Column<?> column) {
+        return renderedColumns == null || renderedColumns.contains(column);
+    }
+
+    /**
+     * Renders the visible columns and the columns within the buffer of those,
+     * and stops rendering the other columns.
+     *
+     * @param columns
+     *            the columns of the grid that are not hidden, in the order
+     *            they are shown on the client
+     * @param visibleColumnIds
+     *            the internal identifiers of the visible columns
+     * @return the columns that were not rendered before, empty if there are
+     *         none
+     */
+    List<Column<?>> setVisibleColumns(List<? extends Column<?>> columns,
+            Set<String> visibleColumnIds) {
+        int count = columns.size();
+        boolean[] rendered = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            if (visibleColumnIds.contains(columns.get(i).getInternalId())) {
+                int last = Math.min(count - 1, i + buffer);
+                for (int j = Math.max(0, i - buffer); j <= last; j++) {
+                    rendered[j] = true;
+                }
+            }
+        }
+        Set<Column<?>> columnSet = Collections
+                .newSetFromMap(new IdentityHashMap<>());
+        List<Column<?>> added = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (rendered[i]) {
+                Column<?> column = columns.get(i);
+                columnSet.add(column);
+                if (!isRendered(column)) {
+                    added.add(column);
+                }
+            }
+        }
+        renderedColumns = columnSet;
+        return added;
+    }
+
+    /**
+     * Renders the given column until the client reports the visible columns
+     * again.
+     *
+     * @param column
+     *            the column to render, not {@code null}
+     */
+    void addRenderedColumn(Column<?> column) {
+        if (renderedColumns != null) {
+            renderedColumns.add(column);
+        }
+    }
+
+    /**
+     * Renders all columns until the client reports the visible columns.
+     */
+    void renderAllColumns() {
+        renderedColumns = null;
+    }
+
+    /**
+     * Gets the items whose data has been generated and not destroyed since.
+     *
+     * @return the active items, in the order their data was first generated
+     */
+    List<T> getActiveItems() {
+        return new ArrayList<>(activeItems.values());
+    }
+
+    /**
+     * Sets the number of columns rendered on each side of the visible
+     * columns.
+     *
+     * @param buffer
+     *            the number of columns, not negative
+     */
+    void setBuffer(int buffer) {
+        if (buffer < 0) {
+            throw new IllegalArgumentException(
+                    "The column buffer should not be negative. Was "
+                            + buffer);
+        }
+        this.buffer = buffer;
+    }
+
+    int getBuffer() {
+        return buffer;
+    }
+
+    private Object getId(T item) {
+        return dataProviderSupplier.get().getId(item);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.function.SerializableComparator;
+
+/**
+ * Items fetched from a data provider for a range of rows, together with the
+ * state of the query they were fetched with. Used for handing items fetched
+ * in the background over to the data communicator.
+ *
+ * @author Vaadin Ltd.
+ * @param <T>
+ *            the item type
+ */
+class FetchedRange<T> implements Serializable {
+
+    private final int start;
+    private final int length;
+    private final List<T> items;
+    private final DataProvider<T, ?> dataProvider;
+    private final List<QuerySortOrder> backEndSorting;
+    private final SerializableComparator<T> inMemorySorting;
+
+    /**
+     * Creates a new fetched range.
+     *
+     * @param start
+     *            the index of the first requested row
+     * @param length
+     *            the number of requested rows
+     * @param items
+     *            the fetched items, fewer than requested if the data
+     *            provider ran out of items
+     * @param dataProvider
+     *            the data provider the items were fetched from
+     * @param backEndSorting
+     *            the back end sorting of the query
+     * @param inMemorySorting
+     *            the in-memory sorting of the query, or <code>null</code>
+     */
+    FetchedRange(int start, int length, List<T> items,
+            DataProvider<T, ?> dataProvider,
+            List<QuerySortOrder> backEndSorting,
+            SerializableComparator<T> inMemorySorting) {
+        this.start = start;
+        this.length = length;
+        this.items = items;
+        this.dataProvider = dataProvider;
+        this.backEndSorting = backEndSorting;
+        this.inMemorySorting = inMemorySorting;
+    }
+
+    /**
+     * Gets whether the given rows can be taken from this range, meaning that
+     * the rows are within the requested rows and the query state is still
+     * the same.
+     *
+     * @param offset
+     *            the index of the first row
+     * @param limit
+     *            the number of rows
+     * @param currentDataProvider
+     *            the current data provider
+     * @param currentBackEndSorting
+     *            the current back end sorting
+     * @param currentInMemorySorting
+     *            the current in-memory sorting, or <code>null</code>
+     * @return <code>true</code> if the rows can be taken from this range,
+     *         <code>false</code> if they need to be fetched
+     */
+    boolean covers(int offset, int limit,
+            DataProvider<T, ?> currentDataProvider,
+            List<QuerySortOrder> currentBackEndSorting,
+            SerializableComparator<T> currentInMemorySorting) {
+        return offset >= start && offset + limit <= start + length
+                && dataProvider == currentDataProvider
+                && inMemorySorting == currentInMemorySorting
+                && Objects.equals(backEndSorting, currentBackEndSorting);
+    }
+
+    /**
+     * Gets the items of the given rows, which must be
+     * {@link #covers(int, int, DataProvider, List, SerializableComparator)
+     * covered} by
+     * this range.
+     *
+     * @param offset
+     *            the index of the first row
+     * @param limit
+     *            the number of rows
+     * @return the items of the rows
+     */
+    Stream<T> getItems(int offset, int limit) {
+        int from = Math.min(offset - start, items.size());
+        int to = Math.min(from + limit, items.size());
+        return items.subList(from, to).stream();
+    }
+}
@@ -22,13 +22,15 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.BinaryOperator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -43,6 +45,8 @@ import com.vaadin.flow.component.HasSize;
 import com.vaadin.flow.component.HasStyle;
 import com.vaadin.flow.component.Synchronize;
 import com.vaadin.flow.component.Tag;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.component.dependency.HtmlImport;
 import com.vaadin.flow.component.dependency.JavaScript;
 import com.vaadin.flow.data.binder.BeanPropertySet;
@@ -55,11 +59,12 @@ import com.vaadin.flow.data.event.SortEvent.SortNotifier;
 import com.vaadin.flow.data.provider.ArrayUpdater;
 import com.vaadin.flow.data.provider.ArrayUpdater.Update;
 import com.vaadin.flow.data.provider.CompositeDataGenerator;
+import com.vaadin.flow.data.provider.DataChangeEvent.DataRefreshEvent;
 import com.vaadin.flow.data.provider.DataCommunicator;
 import com.vaadin.flow.data.provider.DataGenerator;
 import com.vaadin.flow.data.provider.DataProvider;
-import com.vaadin.flow.data.provider.HasDataGenerators;
 import com.vaadin.flow.data.provider.KeyMapper;
+import com.vaadin.flow.data.provider.ListDataProvider;
 import com.vaadin.flow.data.provider.Query;
 import com.vaadin.flow.data.provider.QuerySortOrder;
 import com.vaadin.flow.data.provider.SortDirection;
@@ -68,6 +73,7 @@ import com.vaadin.flow.data.renderer.Renderer;
 import com.vaadin.flow.data.renderer.Rendering;
 import com.vaadin.flow.data.renderer.TemplateRenderer;
 import com.vaadin.flow.data.selection.MultiSelect;
+import com.vaadin.flow.data.selection.MultiSelectionEvent;
 import com.vaadin.flow.data.selection.MultiSelectionListener;
 import com.vaadin.flow.data.selection.SelectionEvent;
 import com.vaadin.flow.data.selection.SelectionListener;
@@ -78,11 +84,14 @@ import com.vaadin.flow.data.selection.SingleSelectionListener;
 import com.vaadin.flow.dom.DisabledUpdateMode;
 import com.vaadin.flow.dom.Element;
 import com.vaadin.flow.function.SerializableComparator;
+import com.vaadin.flow.function.SerializableConsumer;
 import com.vaadin.flow.function.SerializableRunnable;
+import com.vaadin.flow.function.SerializableSupplier;
 import com.vaadin.flow.function.ValueProvider;
 import com.vaadin.flow.internal.JsonSerializer;
 import com.vaadin.flow.internal.JsonUtils;
 import com.vaadin.flow.internal.ReflectTools;
+import com.vaadin.flow.server.Command;
 import com.vaadin.flow.shared.Registration;
 
 import elemental.json.Json;
@@ -90,6 +99,9 @@ import elemental.json.JsonArray;
 import elemental.json.JsonObject;
 import elemental.json.JsonValue;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * Server-side component for the {@code <vaadin-grid>} element.
  *
@@ -123,8 +135,13 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
 
         @Override
         public void set(int start, List<JsonValue> items) {
-            enqueue("$connector.set", start,
-                    items.stream().collect(JsonUtils.asArray()));
+            if (columnarDataEncoding) {
+                enqueue("$connector.setColumns", start,
+                        toColumnarData(items));
+            } else {
+                enqueue("$connector.set", start,
+                        items.stream().collect(JsonUtils.asArray()));
+            }
         }
 
         @Override
@@ -190,6 +207,11 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
                             SelectionEvent<Grid<T>, T> event) {
                         grid.fireEvent((ComponentEvent<Grid<?>>) event);
                     }
+
+                    @Override
+                    protected boolean hasSelectionListeners() {
+                        return grid.hasListener(MultiSelectionEvent.class);
+                    }
                 };
             }
         },
@@ -243,6 +265,11 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
 
         private SerializableComparator<T> comparator;
 
+        private ValueProvider<T, ?> valueProvider;
+
+        private ValueProvider<T, ?> sortKeyExtractor;
+        private Comparator<?> sortKeyComparator;
+
         private Registration columnDataGeneratorRegistration;
 
         /**
@@ -258,11 +285,12 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         public Column(Grid<T> grid, String columnId, Renderer<T> renderer) {
             super(grid);
             this.columnInternalId = columnId;
+            if (grid.isColumnVirtualization()) {
+                setFlowIdProperty(true);
+            }
 
             comparator = (a, b) -> 0;
 
-            HasDataGenerators<T> gridDataGenerator = grid.getDataGenerator();
-
             Rendering<T> rendering = renderer.render(getElement(),
                     (KeyMapper<T>) getGrid().getDataCommunicator()
                             .getKeyMapper());
@@ -270,8 +298,8 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
                     .getDataGenerator();
 
             if (dataGenerator.isPresent()) {
-                columnDataGeneratorRegistration = gridDataGenerator
-                        .addDataGenerator(dataGenerator.get());
+                columnDataGeneratorRegistration = grid.addColumnDataGenerator(
+                        this, renderer, dataGenerator.get());
             }
         }
 
@@ -286,6 +314,18 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
             return columnInternalId;
         }
 
+        /*
+         * Identifies the column when the client reports the visible columns,
+         * only needed with column virtualization.
+         */
+        private void setFlowIdProperty(boolean columnVirtualization) {
+            if (columnVirtualization) {
+                getElement().setProperty("_flowId", columnInternalId);
+            } else {
+                getElement().removeProperty("_flowId");
+            }
+        }
+
         /**
          * Sets the width of this column as a CSS-string.
          *
@@ -404,6 +444,9 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
             Objects.requireNonNull(comparator, "Comparator must not be null");
             setSortable(true);
             this.comparator = comparator::compare;
+            sortKeyExtractor = null;
+            sortKeyComparator = null;
+            getGrid().inMemorySorter.clear();
             return this;
         }
 
@@ -426,8 +469,11 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
                 ValueProvider<T, V> keyExtractor) {
             Objects.requireNonNull(keyExtractor,
                     "Key extractor must not be null");
-            setComparator(Comparator.comparing(keyExtractor,
-                    Comparator.nullsLast(Comparator.naturalOrder())));
+            Comparator<V> keyComparator = Comparator
+                    .nullsLast(Comparator.naturalOrder());
+            setComparator(Comparator.comparing(keyExtractor, keyComparator));
+            sortKeyExtractor = keyExtractor;
+            sortKeyComparator = keyComparator;
             return this;
         }
 
@@ -451,6 +497,29 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
             return reverse ? comparator.reversed()::compare : comparator;
         }
 
+        /**
+         * Adds the sort key of this column to the given comparator. When the
+         * comparator of this column compares values extracted from the items,
+         * the extraction and the comparison of the values are added
+         * separately, so that the values can be extracted once per item.
+         *
+         * @param sortKeys
+         *            the comparator to add the sort key to
+         * @param sortDirection
+         *            the direction this column is sorted by
+         */
+        void addSortKey(SortKeyComparator<T> sortKeys,
+                SortDirection sortDirection) {
+            boolean descending = sortDirection != SortDirection.ASCENDING;
+            if (sortKeyExtractor != null) {
+                sortKeys.addKey(sortKeyExtractor, sortKeyComparator,
+                        descending);
+            } else {
+                sortKeys.addKey(item -> item,
+                        getComparator(SortDirection.ASCENDING), descending);
+            }
+        }
+
         /**
          * Sets strings describing back end properties to be used when sorting
          * this column.
@@ -623,6 +692,34 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
             return this;
         }
 
+        /**
+         * Sets the value provider that gives the plain value of this column
+         * for an item, used when exporting the contents of the grid. Columns
+         * added with a value provider have it set automatically.
+         *
+         * @param valueProvider
+         *            the value provider for the values of this column, or
+         *            {@code null} to leave this column out of exports
+         * @return this column, for method chaining
+         * @see GridCsvExporter
+         */
+        public Column<T> setValueProvider(ValueProvider<T, ?> valueProvider) {
+            this.valueProvider = valueProvider;
+            return this;
+        }
+
+        /**
+         * Gets the value provider that gives the plain value of this column
+         * for an item.
+         *
+         * @return the value provider of this column, or {@code null} if not
+         *         set
+         * @see #setValueProvider(ValueProvider)
+         */
+        public ValueProvider<T, ?> getValueProvider() {
+            return valueProvider;
+        }
+
         @Override
         protected Column<?> getBottomLevelColumn() {
             return this;
@@ -803,17 +900,113 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         public void initialize() {
             initConnector();
             updateSelectionModeOnClient();
+            updatePrefetchOnClient();
+            updateRangeRequestDebounceOnClient();
+            updateMaxCachedPagesOnClient();
+            // The client reports the visible columns again
+            columnVirtualizer.renderAllColumns();
+            updateColumnVirtualizationOnClient();
         }
     };
 
+    /**
+     * Data communicator that takes the items fetched in the background from
+     * the fetched range when it has them, and maps the items to keys with the
+     * grid's key mapper.
+     */
+    private class GridDataCommunicator extends DataCommunicator<T> {
+
+        private FetchedRange<T> fetchedRange;
+
+        private GridDataCommunicator() {
+            super(gridDataGenerator, arrayUpdater,
+                    data -> getElement().callFunction("$connector.updateData",
+                            data),
+                    getElement().getNode());
+            setKeyMapper(keyMapper);
+        }
+
+        @Override
+        protected Stream<T> fetchFromProvider(int offset, int limit) {
+            if (fetchedRange != null) {
+                if (fetchedRange.covers(offset, limit, getDataProvider(),
+                        getBackEndSorting(), getInMemorySorting())) {
+                    return fetchedRange.getItems(offset, limit);
+                }
+                getLogger().debug(
+                        "Rows {}-{} are not covered by the rows fetched in the background, fetching them in the UI thread",
+                        offset, offset + limit - 1);
+            }
+            SerializableComparator<T> inMemorySorting = getInMemorySorting();
+            if (isSortedWithInMemorySorter(getDataProvider(),
+                    inMemorySorting)) {
+                return fetchSortedItems(inMemorySorter.getVersion(),
+                        getSortOrderKey(), getDataProvider(), inMemorySorting,
+                        offset, limit);
+            }
+            if (inMemorySorting instanceof SortKeyComparator
+                    && getDataProvider().isInMemory()) {
+                // Sort eagerly so that the sort keys are extracted only once
+                return ((SortKeyComparator<T>) inMemorySorting)
+                        .withExtractedKeys(() -> super.fetchFromProvider(
+                                offset, limit).collect(Collectors.toList()))
+                        .stream();
+            }
+            return super.fetchFromProvider(offset, limit);
+        }
+
+        @Override
+        public void reset() {
+            // The data may have changed
+            fetchedRange = null;
+            super.reset();
+        }
+
+        private void setFetchedRange(FetchedRange<T> fetchedRange) {
+            this.fetchedRange = fetchedRange;
+        }
+    }
+
     private final CompositeDataGenerator<T> gridDataGenerator = new CompositeDataGenerator<>();
-    private final DataCommunicator<T> dataCommunicator = new DataCommunicator<>(
-            gridDataGenerator, arrayUpdater,
-            data -> getElement().callFunction("$connector.updateData", data),
-            getElement().getNode());
+    private final RowDataCache<T> rowDataCache = new RowDataCache<>(
+            this::getDataProvider);
+    private Registration dataProviderRefreshRegistration;
+    private final IdentifierKeyMapper<T> keyMapper = new IdentifierKeyMapper<>(
+            this::getDataProvider);
+    private final GridDataCommunicator dataCommunicator = new GridDataCommunicator();
+    private final InMemorySorter<T> inMemorySorter = new InMemorySorter<>();
+    private SerializableComparator<T> sortOrderComparator;
 
     private int nextColumnId = 0;
 
+    private List<Column<T>> cachedColumns;
+    private int columnStructureVersion;
+
+    private int columnBatchDepth;
+    private boolean columnBatchResetPending;
+
+    private final Set<AbstractColumn<?>> pendingHeaderFooterColumns = new LinkedHashSet<>();
+    private boolean headerFooterRenderingScheduled;
+    // Columns that are rendered once they are attached
+    private final Set<AbstractColumn<?>> detachedHeaderFooterColumns = new HashSet<>();
+
+    private boolean columnarDataEncoding;
+
+    private final ColumnVirtualizer<T> columnVirtualizer = new ColumnVirtualizer<>(
+            this::getDataProvider);
+    private Registration columnVirtualizationRegistration;
+
+    private double prefetchMultiplier = 1;
+    private int maxPrefetchRows;
+    private boolean adaptivePrefetch;
+    private int rangeRequestDebounce;
+    private int maxCachedPages;
+
+    private transient Executor dataFetchExecutor;
+    private int latestDataFetch;
+    private int requestedRangeStart;
+    private int requestedRangeLength;
+
     private GridSelectionModel<T> selectionModel;
     private SelectionMode selectionMode;
 
@@ -857,6 +1050,14 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
      */
     public Grid(int pageSize) {
         setPageSize(pageSize);
+        gridDataGenerator.addDataGenerator(rowDataCache);
+        addAttachListener(event -> {
+            // The items may have changed while not listening
+            inMemorySorter.clear();
+            rowDataCache.clear();
+            listenToDataProviderRefreshes();
+        });
+        addDetachListener(event -> stopListeningToDataProviderRefreshes());
         setSelectionModel(SelectionMode.SINGLE.createModel(this),
                 SelectionMode.SINGLE);
 
@@ -894,10 +1095,10 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         this();
         Objects.requireNonNull(beanType, "Bean type can't be null");
         propertySet = BeanPropertySet.get(beanType);
-        propertySet.getProperties()
+        configureColumns(grid -> propertySet.getProperties()
                 .filter(property -> !property.isSubProperty()).sorted((prop1,
                         prop2) -> prop1.getName().compareTo(prop2.getName()))
-                .forEach(this::addColumn);
+                .forEach(this::addColumn));
     }
 
     /**
@@ -916,14 +1117,65 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
      * @see #addColumn(Renderer)
      */
     public Column<T> addColumn(ValueProvider<T, ?> valueProvider) {
+        return addValueColumn(valueProvider,
+                item -> formatValueToSendToTheClient(
+                        valueProvider.apply(item)));
+    }
+
+    /**
+     * Adds a new column to this {@link Grid} for numeric values. Unlike with
+     * {@link #addColumn(ValueProvider)}, the values are sent to the client as
+     * JSON numbers instead of converting them to Strings, which makes the
+     * sent data smaller and cheaper to generate. The values are displayed as
+     * formatted by the browser, so for example a {@code Double} value of
+     * {@code 1.0} is displayed as {@code 1}. <code>null</code> values are
+     * displayed as empty cells.
+     * <p>
+     * In-memory sorting is configured to use the natural order of the values.
+     *
+     * @param valueProvider
+     *            the value provider for the numbers
+     * @param <V>
+     *            the number type
+     * @return the created column
+     * @see #addColumn(ValueProvider)
+     */
+    public <V extends Number> Column<T> addNumberColumn(
+            ValueProvider<T, V> valueProvider) {
+        return addValueColumn(valueProvider, valueProvider);
+    }
+
+    /**
+     * Adds a new column to this {@link Grid} for boolean values. Unlike with
+     * {@link #addColumn(ValueProvider)}, the values are sent to the client as
+     * JSON booleans instead of converting them to Strings. <code>null</code>
+     * values are displayed as empty cells.
+     * <p>
+     * In-memory sorting is configured to use the natural order of the values.
+     *
+     * @param valueProvider
+     *            the value provider for the booleans
+     * @return the created column
+     * @see #addColumn(ValueProvider)
+     */
+    public Column<T> addBooleanColumn(
+            ValueProvider<T, Boolean> valueProvider) {
+        return addValueColumn(valueProvider, valueProvider);
+    }
+
+    private Column<T> addValueColumn(ValueProvider<T, ?> valueProvider,
+            ValueProvider<T, ?> clientValueProvider) {
         String columnId = createColumnId(false);
 
         Column<T> column = addColumn(TemplateRenderer
                 .<T> of("[[item." + columnId + "]]")
-                .withProperty(columnId, value -> formatValueToSendToTheClient(
-                        valueProvider.apply(value))));
-        column.comparator = ((a, b) -> compareMaybeComparables(
-                valueProvider.apply(a), valueProvider.apply(b)));
+                .withProperty(columnId, clientValueProvider));
+        SortKeyComparator.ValueComparator valueComparator = new SortKeyComparator.ValueComparator();
+        column.comparator = ((a, b) -> valueComparator
+                .compare(valueProvider.apply(a), valueProvider.apply(b)));
+        column.valueProvider = valueProvider;
+        column.sortKeyExtractor = valueProvider;
+        column.sortKeyComparator = valueComparator;
         return column;
     }
 
@@ -1003,7 +1255,7 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
     public Column<T> addColumn(Renderer<T> renderer) {
         String columnId = createColumnId(true);
 
-        getDataCommunicator().reset();
+        resetDataForColumnChange();
 
         Column<T> column = new Column<>(this, columnId, renderer);
         idToColumnMap.put(columnId, column);
@@ -1017,6 +1269,10 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
             current = group;
         }
         getElement().appendChild(current.getElement());
+        invalidateColumns();
+
+        columnVirtualizer.addRenderedColumn(column);
+        requestVisibleColumns();
 
         return column;
     }
@@ -1160,8 +1416,45 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
             throw new UnsupportedOperationException(
                     "This method can't be used for a Grid that isn't constructed from a bean type");
         }
-        getColumns().forEach(this::removeColumn);
-        Stream.of(propertyNames).forEach(this::addColumn);
+        configureColumns(grid -> {
+            getColumns().forEach(this::removeColumn);
+            Stream.of(propertyNames).forEach(this::addColumn);
+        });
+    }
+
+    /**
+     * Runs the given configurator as one batch of column changes. Adding
+     * columns resends the data of all rows to the client, since the new
+     * columns need data of their own. Inside a batch, the data is resent
+     * only once after the whole batch, instead of once per added column.
+     * <p>
+     * Batches can be nested, in which case the data is resent after the
+     * outermost batch. The data is resent even if the configurator throws.
+     *
+     * @param configurator
+     *            the configurator that adds, removes and configures the
+     *            columns of this grid, not {@code null}
+     */
+    public void configureColumns(SerializableConsumer<Grid<T>> configurator) {
+        Objects.requireNonNull(configurator, "Configurator cannot be null");
+        columnBatchDepth++;
+        try {
+            configurator.accept(this);
+        } finally {
+            columnBatchDepth--;
+            if (columnBatchDepth == 0 && columnBatchResetPending) {
+                columnBatchResetPending = false;
+                getDataCommunicator().reset();
+            }
+        }
+    }
+
+    private void resetDataForColumnChange() {
+        if (columnBatchDepth > 0) {
+            columnBatchResetPending = true;
+        } else {
+            getDataCommunicator().reset();
+        }
     }
 
     /**
@@ -1298,6 +1591,7 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
 
         ColumnLayer layer = new ColumnLayer(this, groups);
         columnLayers.add(index, layer);
+        invalidateColumns();
 
         return layer;
     }
@@ -1319,6 +1613,7 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
             List<AbstractColumn<?>> columns) {
         ColumnLayer layer = new ColumnLayer(this, columns);
         columnLayers.add(index, layer);
+        invalidateColumns();
         return layer;
     }
 
@@ -1344,6 +1639,7 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
             column.getElement().removeFromParent();
         });
         columnLayers.remove(layer);
+        invalidateColumns();
     }
 
     private ColumnLayer insertInmostColumnLayer(boolean forHeaderRow,
@@ -1384,6 +1680,7 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         bottomLayer.setColumns(groups);
 
         columnLayers.add(0, newBottomLayer);
+        invalidateColumns();
 
         if (bottomLayer.isHeaderRow()
                 && bottomLayer.asHeaderRow().equals(defaultHeaderRow)) {
@@ -1423,6 +1720,12 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         Objects.requireNonNull(dataProvider, "data provider cannot be null");
         deselectAll();
         getDataCommunicator().setDataProvider(dataProvider, null);
+        rowDataCache.clear();
+        inMemorySorter.clear();
+        if (dataProviderRefreshRegistration != null) {
+            stopListeningToDataProviderRefreshes();
+            listenToDataProviderRefreshes();
+        }
 
         /*
          * The visibility of the selectAll checkbox depends on whether the
@@ -1445,6 +1748,67 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         return getDataCommunicator().getDataProvider();
     }
 
+    /**
+     * Sets the number of rows whose generated data is kept in memory, so that
+     * sending the same items to the client again, for example when scrolling
+     * back or changing the sort order, doesn't run the renderers and value
+     * providers of the columns again. The cache is disabled by default.
+     * <p>
+     * The cached data of an item is dropped when the item is refreshed with
+     * {@link DataProvider#refreshItem(Object)} or
+     * {@link DataCommunicator#refresh(Object)}, and all cached data is dropped
+     * when columns are added or removed, when the data provider is changed and
+     * when all data is refreshed. The data of columns using a
+     * {@link ComponentRenderer} is never cached.
+     * <p>
+     * Only use the cache when the generated data of an item only depends on
+     * the item itself.
+     *
+     * @param rowDataCacheSize
+     *            the maximum number of cached rows, or {@code 0} to disable
+     *            the cache
+     * @see #setRowDataCacheMemoryLimit(long)
+     */
+    public void setRowDataCacheSize(int rowDataCacheSize) {
+        rowDataCache.setMaxRows(rowDataCacheSize);
+    }
+
+    /**
+     * Gets the number of rows whose generated data is kept in memory.
+     *
+     * @return the maximum number of cached rows, {@code 0} if the cache is
+     *         disabled
+     * @see #setRowDataCacheSize(int)
+     */
+    public int getRowDataCacheSize() {
+        return rowDataCache.getMaxRows();
+    }
+
+    /**
+     * Sets the maximum amount of memory used by the cached row data. The
+     * memory use is estimated from the size of the data when it is sent to
+     * the client. The least recently sent rows are dropped from the cache
+     * when the limit is exceeded. By default, only the number of rows is
+     * limited.
+     *
+     * @param maxBytes
+     *            the maximum estimated memory use in bytes, greater than zero
+     * @see #setRowDataCacheSize(int)
+     */
+    public void setRowDataCacheMemoryLimit(long maxBytes) {
+        rowDataCache.setMaxSize(maxBytes);
+    }
+
+    /**
+     * Gets the maximum amount of memory used by the cached row data.
+     *
+     * @return the maximum estimated memory use in bytes
+     * @see #setRowDataCacheMemoryLimit(long)
+     */
+    public long getRowDataCacheMemoryLimit() {
+        return rowDataCache.getMaxSize();
+    }
+
     /**
      * Returns the data communicator of this Grid.
      *
@@ -1491,6 +1855,424 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         getDataCommunicator().reset();
     }
 
+    /**
+     * Sets how many rows the client requests beyond the visible rows, as a
+     * multiple of the number of visible rows. The rows are requested both
+     * before and after the visible rows. The default is {@code 1}, which
+     * means that one screenful of rows is requested on each side of the
+     * visible rows.
+     * <p>
+     * A bigger multiplier means fewer round trips when scrolling but bigger
+     * responses, and a smaller one the other way around.
+     *
+     * @param prefetchMultiplier
+     *            the number of visible rows to request on each side of the
+     *            visible rows, as a multiple. Should not be negative
+     * @see #setMaxPrefetchRows(int)
+     * @see #setAdaptivePrefetch(boolean)
+     */
+    public void setPrefetchMultiplier(double prefetchMultiplier) {
+        if (prefetchMultiplier < 0) {
+            throw new IllegalArgumentException(
+                    "The prefetch multiplier should not be negative. Was "
+                            + prefetchMultiplier);
+        }
+        this.prefetchMultiplier = prefetchMultiplier;
+        updatePrefetchOnClient();
+    }
+
+    /**
+     * Gets the number of rows the client requests beyond the visible rows, as
+     * a multiple of the number of visible rows.
+     *
+     * @return the prefetch multiplier
+     * @see #setPrefetchMultiplier(double)
+     */
+    public double getPrefetchMultiplier() {
+        return prefetchMultiplier;
+    }
+
+    /**
+     * Sets the maximum number of rows the client requests on each side of the
+     * visible rows, regardless of the {@link #setPrefetchMultiplier(double)
+     * multiplier} and the {@link #setAdaptivePrefetch(boolean) adaptive
+     * prefetch}. The default is {@code 0}, which means that the number of
+     * rows is not limited.
+     *
+     * @param maxPrefetchRows
+     *            the maximum number of rows to request on each side of the
+     *            visible rows, or {@code 0} for no limit
+     */
+    public void setMaxPrefetchRows(int maxPrefetchRows) {
+        if (maxPrefetchRows < 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of prefetched rows should not be negative. Was "
+                            + maxPrefetchRows);
+        }
+        this.maxPrefetchRows = maxPrefetchRows;
+        updatePrefetchOnClient();
+    }
+
+    /**
+     * Gets the maximum number of rows the client requests on each side of the
+     * visible rows.
+     *
+     * @return the maximum number of prefetched rows, or {@code 0} if it is not
+     *         limited
+     * @see #setMaxPrefetchRows(int)
+     */
+    public int getMaxPrefetchRows() {
+        return maxPrefetchRows;
+    }
+
+    /**
+     * Sets whether the number of rows the client requests beyond the visible
+     * rows adapts to the scrolling speed. When enabled, the number of
+     * prefetched rows grows while the user scrolls fast, up to eight times
+     * the number given by the {@link #setPrefetchMultiplier(double)
+     * multiplier}, and shrinks back when the scrolling slows down or stops.
+     * The default is {@code false}.
+     *
+     * @param adaptivePrefetch
+     *            {@code true} to adapt the number of prefetched rows to the
+     *            scrolling speed, {@code false} to use a fixed number
+     * @see #setMaxPrefetchRows(int)
+     */
+    public void setAdaptivePrefetch(boolean adaptivePrefetch) {
+        this.adaptivePrefetch = adaptivePrefetch;
+        updatePrefetchOnClient();
+    }
+
+    /**
+     * Gets whether the number of rows the client requests beyond the visible
+     * rows adapts to the scrolling speed.
+     *
+     * @return {@code true} if the number of prefetched rows adapts to the
+     *         scrolling speed, {@code false} otherwise
+     * @see #setAdaptivePrefetch(boolean)
+     */
+    public boolean isAdaptivePrefetch() {
+        return adaptivePrefetch;
+    }
+
+    /**
+     * Gets the index of the first row of the range the client last
+     * requested.
+     *
+     * @return the start of the last requested range
+     * @see #getRequestedRangeLength()
+     */
+    public int getRequestedRangeStart() {
+        return requestedRangeStart;
+    }
+
+    /**
+     * Gets the number of rows in the range the client last requested. This
+     * can be used for tuning the prefetch settings.
+     *
+     * @return the length of the last requested range
+     * @see #setPrefetchMultiplier(double)
+     * @see #setMaxPrefetchRows(int)
+     * @see #setAdaptivePrefetch(boolean)
+     */
+    public int getRequestedRangeLength() {
+        return requestedRangeLength;
+    }
+
+    /**
+     * Sets how long the client waits for the scrolling to settle before it
+     * requests new rows from the server. Each new request during the wait
+     * replaces the previous one and restarts the wait, so when the user
+     * scrolls quickly over many rows, only the range where the scrolling
+     * stops is fetched from the data provider. Requests made at the same
+     * time are always combined, even when the delay is {@code 0}, which is
+     * the default.
+     *
+     * @param rangeRequestDebounce
+     *            the delay in milliseconds. Should not be negative
+     */
+    public void setRangeRequestDebounce(int rangeRequestDebounce) {
+        if (rangeRequestDebounce < 0) {
+            throw new IllegalArgumentException(
+                    "The range request debounce should not be negative. Was "
+                            + rangeRequestDebounce);
+        }
+        this.rangeRequestDebounce = rangeRequestDebounce;
+        updateRangeRequestDebounceOnClient();
+    }
+
+    /**
+     * Gets how long the client waits for the scrolling to settle before it
+     * requests new rows from the server.
+     *
+     * @return the delay in milliseconds
+     * @see #setRangeRequestDebounce(int)
+     */
+    public int getRangeRequestDebounce() {
+        return rangeRequestDebounce;
+    }
+
+    /**
+     * Sets the executor used for fetching the rows requested by the client
+     * from the data provider. By default, the rows are fetched while handling
+     * the request of the client, which keeps the session locked for as long
+     * as the data provider takes, and the UI can't handle anything else in
+     * the meantime.
+     * <p>
+     * With an executor, the rows are fetched in the background without
+     * holding the session lock, and sent to the client with
+     * {@link UI#access(Command)} when they are ready.
+     * The rows show up as empty placeholders until then. If the client
+     * requests another range before the rows are ready, the older range is
+     * not sent. The executor is not serialized with the grid.
+     * <p>
+     * <strong>Note:</strong> delivering the rows requires server push or
+     * polling to be enabled for the UI.
+     *
+     * @param dataFetchExecutor
+     *            the executor to fetch the rows with, or <code>null</code> to
+     *            fetch them while handling the request
+     */
+    public void setDataFetchExecutor(Executor dataFetchExecutor) {
+        this.dataFetchExecutor = dataFetchExecutor;
+    }
+
+    /**
+     * Gets the executor used for fetching the rows requested by the client
+     * from the data provider.
+     *
+     * @return the executor, or <code>null</code> if the rows are fetched while
+     *         handling the request
+     * @see #setDataFetchExecutor(Executor)
+     */
+    public Executor getDataFetchExecutor() {
+        return dataFetchExecutor;
+    }
+
+    /**
+     * Sets the maximum number of pages of rows the client keeps in memory.
+     * When scrolling through a large number of rows, the pages farthest away
+     * from the visible rows are dropped when there are more pages than this,
+     * and the range of rows requested from the server is limited to this
+     * many pages. Since the server only keeps the rows of the requested
+     * range, this also limits the memory used on the server. The default is
+     * {@code 0}, which means no limit.
+     * <p>
+     * The client always keeps at least the pages of the visible rows and of
+     * the prefetched rows around them, even if that is more than the given
+     * number of pages.
+     *
+     * @param maxCachedPages
+     *            the maximum number of pages, or {@code 0} for no limit
+     * @see #setPageSize(int)
+     */
+    public void setMaxCachedPages(int maxCachedPages) {
+        if (maxCachedPages < 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of cached pages should not be negative. Was "
+                            + maxCachedPages);
+        }
+        this.maxCachedPages = maxCachedPages;
+        updateMaxCachedPagesOnClient();
+    }
+
+    /**
+     * Gets the maximum number of pages of rows the client keeps in memory.
+     *
+     * @return the maximum number of pages, or {@code 0} for no limit
+     * @see #setMaxCachedPages(int)
+     */
+    public int getMaxCachedPages() {
+        return maxCachedPages;
+    }
+
+    /**
+     * Sets whether the keys that identify items on the client are derived
+     * from the numeric {@link DataProvider#getId(Object) identifiers} of the
+     * items. When enabled, the items whose identifiers are {@code Long},
+     * {@code Integer}, {@code Short} or {@code Byte} values are kept in a
+     * primitive map keyed by the identifier, instead of the two string maps
+     * used by default, which reduces the memory used per sent row. Other
+     * items are mapped as usual. The default is {@code false}.
+     * <p>
+     * <b>Note that the keys then contain the backend identifiers of the
+     * items, so the identifiers are sent to the browser.</b> Don't enable
+     * this if the identifiers should not be visible to the user.
+     * <p>
+     * Changing this resets the data sent to the client.
+     *
+     * @param compactKeyMapping
+     *            {@code true} to derive the keys from numeric identifiers,
+     *            {@code false} to use generated keys
+     */
+    public void setCompactKeyMapping(boolean compactKeyMapping) {
+        if (keyMapper.isCompact() != compactKeyMapping) {
+            keyMapper.setCompact(compactKeyMapping);
+            getDataCommunicator().reset();
+        }
+    }
+
+    /**
+     * Gets whether the keys that identify items on the client are derived
+     * from the numeric identifiers of the items.
+     *
+     * @return {@code true} if the keys are derived from numeric identifiers,
+     *         {@code false} otherwise
+     * @see #setCompactKeyMapping(boolean)
+     */
+    public boolean isCompactKeyMapping() {
+        return keyMapper.isCompact();
+    }
+
+    /**
+     * Sets whether the items of a {@link ListDataProvider} are sorted in
+     * parallel in memory. When enabled, the items are sorted in parallel in
+     * {@link ForkJoinPool#commonPool()} when the sort order changes. The pool
+     * is shared by all grids and the rest of the application, and its
+     * parallelism bounds the number of threads used. By default, the items
+     * are sorted in the calling thread.
+     * <p>
+     * Either way, all the items are sorted once per sort order, and the
+     * sorted order of the few most recently used sort orders is kept as an
+     * array of indexes, so that fetching a range of rows or sorting by one of
+     * those orders again doesn't sort the items again. The kept orders are
+     * dropped when the data provider is refreshed.
+     * <p>
+     * <b>When this is enabled, the value providers and comparators of the
+     * sorted columns are run concurrently in the pool threads, outside of the
+     * UI thread and without the session lock.</b> They should thus not access
+     * the UI or other session state, and must be thread-safe. The thread
+     * that requested the rows still waits for the sort to complete while
+     * holding the session lock.
+     *
+     * @param parallel
+     *            {@code true} to sort in parallel, {@code false} to sort in
+     *            the calling thread
+     * @see #createSortingComparator()
+     */
+    public void setInMemorySortParallel(boolean parallel) {
+        inMemorySorter.setParallel(parallel);
+    }
+
+    /**
+     * Gets whether the items of a {@link ListDataProvider} are sorted in
+     * parallel in memory.
+     *
+     * @return {@code true} if the items are sorted in parallel,
+     *         {@code false} if they are sorted in the calling thread
+     * @see #setInMemorySortParallel(boolean)
+     */
+    public boolean isInMemorySortParallel() {
+        return inMemorySorter.isParallel();
+    }
+
+    /**
+     * Sets whether only the data of the columns that are visible on the
+     * client is sent. By default, the data of all columns is sent for every
+     * row. With column virtualization, the client reports which columns are
+     * visible when it requests rows and when it is scrolled horizontally, and
+     * only the data generators of those columns and of the
+     * {@link #setColumnVirtualizationBuffer(int) buffer columns} next to them
+     * are run. When scrolling makes more columns visible, their data is sent
+     * for the rows that the client already has.
+     * <p>
+     * This makes the rows of grids with a large number of columns
+     * considerably smaller, at the cost of a round trip before the data of
+     * the newly visible columns is shown. Changing this resends the rows.
+     *
+     * @param columnVirtualization
+     *            {@code true} to send only the data of the visible columns,
+     *            {@code false} to send the data of all columns
+     * @see #setColumnVirtualizationBuffer(int)
+     */
+    public void setColumnVirtualization(boolean columnVirtualization) {
+        if (isColumnVirtualization() == columnVirtualization) {
+            return;
+        }
+        if (columnVirtualization) {
+            columnVirtualizationRegistration = gridDataGenerator
+                    .addDataGenerator(columnVirtualizer);
+        } else {
+            columnVirtualizationRegistration.remove();
+            columnVirtualizationRegistration = null;
+        }
+        getColumns().forEach(
+                column -> column.setFlowIdProperty(columnVirtualization));
+        columnVirtualizer.renderAllColumns();
+        rowDataCache.clear();
+        getDataCommunicator().reset();
+        updateColumnVirtualizationOnClient();
+    }
+
+    /**
+     * Gets whether only the data of the columns that are visible on the
+     * client is sent.
+     *
+     * @return {@code true} if only the data of the visible columns is sent,
+     *         {@code false} if the data of all columns is sent
+     * @see #setColumnVirtualization(boolean)
+     */
+    public boolean isColumnVirtualization() {
+        return columnVirtualizationRegistration != null;
+    }
+
+    /**
+     * Sets the number of columns on each side of the visible columns whose
+     * data is sent when {@link #setColumnVirtualization(boolean) column
+     * virtualization} is enabled. A larger buffer makes it less likely that
+     * the user sees empty cells while scrolling horizontally. The default is
+     * {@value ColumnVirtualizer#DEFAULT_BUFFER}.
+     *
+     * @param columns
+     *            the number of columns on each side of the visible columns,
+     *            not negative
+     */
+    public void setColumnVirtualizationBuffer(int columns) {
+        columnVirtualizer.setBuffer(columns);
+        requestVisibleColumns();
+    }
+
+    /**
+     * Gets the number of columns on each side of the visible columns whose
+     * data is sent when column virtualization is enabled.
+     *
+     * @return the number of columns on each side of the visible columns
+     * @see #setColumnVirtualizationBuffer(int)
+     */
+    public int getColumnVirtualizationBuffer() {
+        return columnVirtualizer.getBuffer();
+    }
+
+    /*
+     * Asks the client to report the visible columns even if they haven't
+     * changed. This method is not private because AbstractColumn uses it.
+     */
+    void requestVisibleColumns() {
+        if (isColumnVirtualization()) {
+            getElement().callFunction("$connector.updateVisibleColumns");
+        }
+    }
+
+    private void updateColumnVirtualizationOnClient() {
+        getElement().callFunction("$connector.setColumnVirtualization",
+                isColumnVirtualization());
+    }
+
+    private void updateMaxCachedPagesOnClient() {
+        getElement().callFunction("$connector.setMaxCachedPages",
+                maxCachedPages);
+    }
+
+    private void updateRangeRequestDebounceOnClient() {
+        getElement().callFunction("$connector.setRangeRequestDebounce",
+                rangeRequestDebounce);
+    }
+
+    private void updatePrefetchOnClient() {
+        getElement().callFunction("$connector.setPrefetch",
+                prefetchMultiplier, maxPrefetchRows, adaptivePrefetch);
+    }
+
     /**
      * Returns the selection model for this grid.
      *
@@ -1658,30 +2440,31 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
     }
 
     void doClientSideSelection(Set<T> items) {
-        callSelectionFunctionForItems("doSelection", items);
+        callSelectionFunctionForItems("doSelectionForKeys", items);
     }
 
     void doClientSideDeselection(Set<T> items) {
-        callSelectionFunctionForItems("doDeselection", items);
+        callSelectionFunctionForItems("doDeselectionForKeys", items);
     }
 
+    /*
+     * Sends the keys of the given items in one array. Items without a key
+     * have never been sent to the client, so they are skipped: they get their
+     * selection state through the data generators once they are sent.
+     */
     private void callSelectionFunctionForItems(String function, Set<T> items) {
         if (items.isEmpty()) {
             return;
         }
-        Serializable[] values = new Serializable[items.size() + 1];
-        List<Serializable> collect = items.stream()
-                .map(item -> generateJsonForSelection(item))
-                .map(item -> (Serializable) item).collect(Collectors.toList());
-        collect.add(1, false);
-        collect.toArray(values);
-        getElement().callFunction("$connector." + function, values);
-    }
-
-    private JsonObject generateJsonForSelection(T item) {
-        JsonObject json = Json.createObject();
-        json.put("key", getDataCommunicator().getKeyMapper().key(item));
-        return json;
+        JsonArray keys = Json.createArray();
+        for (T item : items) {
+            if (item != null
+                    && getDataCommunicator().getKeyMapper().has(item)) {
+                keys.set(keys.length(),
+                        getDataCommunicator().getKeyMapper().key(item));
+            }
+        }
+        getElement().callFunction("$connector." + function, keys, false);
     }
 
     /**
@@ -1792,9 +2575,68 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
      * @return unmodifiable list of columns
      */
     public List<Column<T>> getColumns() {
-        List<Column<T>> ret = new ArrayList<>();
-        getTopLevelColumns().forEach(column -> appendChildColumns(ret, column));
-        return Collections.unmodifiableList(ret);
+        if (cachedColumns == null) {
+            List<Column<T>> ret = new ArrayList<>();
+            getTopLevelColumns()
+                    .forEach(column -> appendChildColumns(ret, column));
+            cachedColumns = Collections.unmodifiableList(ret);
+        }
+        return cachedColumns;
+    }
+
+    /*
+     * Drops the cached list of columns, to be called whenever columns or
+     * column groups are added, removed or moved. This method is not private
+     * because AbstractRow uses it.
+     */
+    void invalidateColumns() {
+        cachedColumns = null;
+        columnStructureVersion++;
+    }
+
+    /*
+     * Gets a number that changes whenever the column structure may have
+     * changed, for caching information derived from the structure. This
+     * method is not private because AbstractColumn uses it.
+     */
+    int getColumnStructureVersion() {
+        return columnStructureVersion;
+    }
+
+    /*
+     * Marks the header or footer of the given column or column group to be
+     * rendered. All the marked columns are rendered in a single pass before
+     * the client response. This method is not private because AbstractColumn
+     * uses it.
+     */
+    void scheduleHeaderFooterRendering(AbstractColumn<?> column) {
+        pendingHeaderFooterColumns.add(column);
+        if (headerFooterRenderingScheduled) {
+            return;
+        }
+        headerFooterRenderingScheduled = true;
+        getElement().getNode().runWhenAttached(
+                ui -> ui.beforeClientResponse(this,
+                        context -> renderHeadersAndFooters()));
+    }
+
+    private void renderHeadersAndFooters() {
+        headerFooterRenderingScheduled = false;
+        List<AbstractColumn<?>> columns = new ArrayList<>(
+                pendingHeaderFooterColumns);
+        pendingHeaderFooterColumns.clear();
+        for (AbstractColumn<?> column : columns) {
+            if (column.getElement().getNode().isAttached()) {
+                column.renderHeaderAndFooter();
+            } else if (detachedHeaderFooterColumns.add(column)) {
+                // Rendered in the first response after the column is attached
+                column.getElement().getNode().runWhenAttached(ui -> {
+                    if (detachedHeaderFooterColumns.remove(column)) {
+                        scheduleHeaderFooterRendering(column);
+                    }
+                });
+            }
+        }
     }
 
     /**
@@ -1850,6 +2692,7 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
                     + column.getKey() + "' is not part of this Grid");
         }
         removeColumnAndColumnGroupsIfNeeded(column);
+        invalidateColumns();
         column.destroyDataGenerators();
         keyToColumnMap.remove(column.getKey());
         idToColumnMap.remove(column.getInternalId());
@@ -1859,6 +2702,8 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         Component parent = column.getParent().get();
         parent.getElement().removeChild(column.getElement());
         columnLayers.get(0).removeColumn(column);
+        pendingHeaderFooterColumns.remove(column);
+        detachedHeaderFooterColumns.remove(column);
         if (!parent.equals(this)) {
             removeEmptyColumnGroups((ColumnGroup) parent, 1);
         }
@@ -1870,6 +2715,8 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         if (columnGroup.getChildColumns().size() == 0) {
             parent.getElement().removeChild(columnGroup.getElement());
             columnLayers.get(columnLayerIndex).removeColumn(columnGroup);
+            pendingHeaderFooterColumns.remove(columnGroup);
+            detachedHeaderFooterColumns.remove(columnGroup);
             if (!parent.equals(this)) {
                 removeEmptyColumnGroups((ColumnGroup) parent,
                         columnLayerIndex + 1);
@@ -1963,6 +2810,67 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         return multiSort == null ? false : Boolean.valueOf(multiSort);
     }
 
+    /**
+     * Sets whether the rows are sent to the client column by column instead
+     * of row by row. By default, each row is sent as its own object that
+     * repeats the names of all the properties of the row. With the columnar
+     * encoding, the name of each property is sent once per batch of rows,
+     * followed by the values of that property for all the rows, which makes
+     * the sent data considerably smaller for grids with many columns.
+     * <p>
+     * The rows are rebuilt on the client, where a <code>null</code> value is
+     * treated the same as a missing property.
+     *
+     * @param columnarDataEncoding
+     *            {@code true} to send the rows column by column, {@code false}
+     *            to send them row by row
+     */
+    public void setColumnarDataEncoding(boolean columnarDataEncoding) {
+        this.columnarDataEncoding = columnarDataEncoding;
+    }
+
+    /**
+     * Gets whether the rows are sent to the client column by column instead
+     * of row by row.
+     *
+     * @return {@code true} if the rows are sent column by column,
+     *         {@code false} if they are sent row by row
+     * @see #setColumnarDataEncoding(boolean)
+     */
+    public boolean isColumnarDataEncoding() {
+        return columnarDataEncoding;
+    }
+
+    /*
+     * Converts the row objects to an object with the row count as "length"
+     * and an array of values per property in "columns". Rows that don't have
+     * a property get null for it. This method is not private because it is
+     * tested separately.
+     */
+    static JsonObject toColumnarData(List<JsonValue> items) {
+        JsonObject columns = Json.createObject();
+        for (int row = 0; row < items.size(); row++) {
+            JsonObject item = (JsonObject) items.get(row);
+            for (String property : item.keys()) {
+                JsonArray values;
+                if (columns.hasKey(property)) {
+                    values = columns.getArray(property);
+                } else {
+                    values = Json.createArray();
+                    columns.put(property, values);
+                }
+                for (int i = values.length(); i < row; i++) {
+                    values.set(i, Json.createNull());
+                }
+                values.set(row, item.get(property));
+            }
+        }
+        JsonObject data = Json.createObject();
+        data.put("length", items.size());
+        data.put("columns", columns);
+        return data;
+    }
+
     private List<Column<T>> fetchChildColumns(ColumnGroup columnGroup) {
         List<Column<T>> ret = new ArrayList<>();
         columnGroup.getChildColumns()
@@ -1980,17 +2888,21 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
     }
 
     @ClientCallable
-    private void select(int key) {
+    private void select(String key) {
         getSelectionModel().selectFromClient(findByKey(key));
     }
 
     @ClientCallable
-    private void deselect(int key) {
+    private void deselect(String key) {
         getSelectionModel().deselectFromClient(findByKey(key));
     }
 
-    private T findByKey(int key) {
-        T item = getDataCommunicator().getKeyMapper().get(String.valueOf(key));
+    /*
+     * The keys are strings since compact key mapping prefixes them, so they
+     * are not always numeric.
+     */
+    private T findByKey(String key) {
+        T item = getDataCommunicator().getKeyMapper().get(key);
         if (item == null) {
             throw new IllegalStateException("Unkonwn key: " + key);
         }
@@ -2004,7 +2916,163 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
 
     @ClientCallable(DisabledUpdateMode.ALWAYS)
     private void setRequestedRange(int start, int length) {
-        getDataCommunicator().setRequestedRange(start, length);
+        requestedRangeStart = start;
+        requestedRangeLength = length;
+        Optional<UI> ui = getUI();
+        if (dataFetchExecutor == null || !ui.isPresent()) {
+            getDataCommunicator().setRequestedRange(start, length);
+        } else {
+            fetchInBackground(ui.get(), start, length);
+        }
+    }
+
+    /*
+     * Fetches the items of the range with the data fetch executor, and then
+     * passes the range to the data communicator while holding the session
+     * lock. The data communicator takes the items from the fetched range
+     * instead of fetching them again. Ranges that have been superseded by a
+     * newer one by the time they are fetched are dropped.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void fetchInBackground(UI ui, int start, int length) {
+        int dataFetch = ++latestDataFetch;
+        DataProvider<T, ?> dataProvider = getDataProvider();
+        List<QuerySortOrder> backEndSorting = new ArrayList<>(
+                dataCommunicator.getBackEndSorting());
+        SerializableComparator<T> inMemorySorting = dataCommunicator
+                .getInMemorySorting();
+        Query query = new Query(start, length, backEndSorting,
+                inMemorySorting, null);
+        boolean sortedWithInMemorySorter = isSortedWithInMemorySorter(
+                dataProvider, inMemorySorting);
+        String sortOrderKey = getSortOrderKey();
+        int sorterVersion = inMemorySorter.getVersion();
+
+        dataFetchExecutor.execute(() -> {
+            SerializableSupplier<List<T>> fetch = () -> {
+                Stream<T> stream = sortedWithInMemorySorter
+                        ? fetchSortedItems(sorterVersion, sortOrderKey,
+                                dataProvider, inMemorySorting, start, length)
+                        : (Stream<T>) dataProvider.fetch(query);
+                return stream.collect(Collectors.toList());
+            };
+            List<T> items;
+            try {
+                items = inMemorySorting instanceof SortKeyComparator
+                        ? ((SortKeyComparator<T>) inMemorySorting)
+                                .withExtractedKeys(fetch)
+                        : fetch.get();
+            } catch (RuntimeException e) {
+                getLogger().error(
+                        "Fetching rows {}-{} in the background failed", start,
+                        start + length - 1, e);
+                // Rethrown in the UI so that its error handler handles it
+                accessIfLatestDataFetch(ui, dataFetch, () -> {
+                    throw e;
+                });
+                return;
+            }
+            FetchedRange<T> fetchedRange = new FetchedRange<>(start, length,
+                    items, dataProvider, backEndSorting, inMemorySorting);
+            accessIfLatestDataFetch(ui, dataFetch, () -> {
+                dataCommunicator.setFetchedRange(fetchedRange);
+                dataCommunicator.setRequestedRange(start, length);
+            });
+        });
+    }
+
+    /*
+     * Runs the command with the session lock, unless a newer range has been
+     * requested or the grid has been detached in the meantime.
+     */
+    private void accessIfLatestDataFetch(UI ui, int dataFetch,
+            Command command) {
+        try {
+            ui.access(() -> {
+                if (dataFetch == latestDataFetch && getUI().isPresent()) {
+                    command.execute();
+                }
+            });
+        } catch (UIDetachedException e) {
+            // The UI was closed while fetching, nobody needs the rows
+        }
+    }
+
+    /*
+     * Whether the rows are sorted with the in-memory sorter, which keeps the
+     * sorted order of all the items instead of sorting them for every range.
+     */
+    private boolean isSortedWithInMemorySorter(DataProvider<T, ?> dataProvider,
+            SerializableComparator<T> inMemorySorting) {
+        return inMemorySorting != null
+                && inMemorySorting == sortOrderComparator
+                && dataProvider instanceof ListDataProvider;
+    }
+
+    /*
+     * Takes the rows from the items sorted by the in-memory sorter. May be
+     * called outside of the UI thread, so all the state is passed in.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Stream<T> fetchSortedItems(int sorterVersion, String sortOrderKey,
+            DataProvider<T, ?> dataProvider,
+            SerializableComparator<T> inMemorySorting, int offset,
+            int limit) {
+        int count = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        List<T> sorted = inMemorySorter.getSortedItems(sorterVersion,
+                sortOrderKey,
+                () -> ((DataProvider) dataProvider).fetch(new Query()),
+                inMemorySorting, count);
+        int end = Math.min(count, sorted.size());
+        return sorted.subList(Math.min(offset, end), end).stream();
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(Grid.class.getName());
+    }
+
+    @ClientCallable(DisabledUpdateMode.ALWAYS)
+    private void setVisibleColumns(JsonArray columnIds,
+            JsonArray visibleColumnIds) {
+        if (!isColumnVirtualization()) {
+            return;
+        }
+        // The buffers are counted in the order the columns are shown in
+        List<Column<T>> columns = new ArrayList<>(columnIds.length());
+        for (int i = 0; i < columnIds.length(); i++) {
+            Column<T> column = idToColumnMap.get(columnIds.getString(i));
+            if (column != null) {
+                columns.add(column);
+            }
+        }
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < visibleColumnIds.length(); i++) {
+            ids.add(visibleColumnIds.getString(i));
+        }
+        if (!columnVirtualizer.setVisibleColumns(columns, ids).isEmpty()) {
+            sendActiveItems();
+        }
+    }
+
+    /*
+     * Sends the data of the rows that the client has again, so that the
+     * columns that weren't rendered before get their data. The cached row
+     * data only has the columns that were rendered when it was generated.
+     */
+    private void sendActiveItems() {
+        List<T> items = columnVirtualizer.getActiveItems();
+        if (items.isEmpty()) {
+            return;
+        }
+        rowDataCache.clear();
+        JsonArray data = Json.createArray();
+        for (T item : items) {
+            JsonObject json = Json.createObject();
+            json.put("key", getDataCommunicator().getKeyMapper().key(item));
+            gridDataGenerator.generateData(item, json);
+            data.set(data.length(), json);
+        }
+        getElement().callFunction("$connector.updateData", data);
     }
 
     @ClientCallable
@@ -2051,6 +3119,55 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         return gridDataGenerator;
     }
 
+    /*
+     * This method is not private because Column uses it. The data of
+     * component renderers is never cached, since their components are
+     * created when the data is generated.
+     */
+    Registration addColumnDataGenerator(Column<T> column,
+            Renderer<T> renderer, DataGenerator<T> dataGenerator) {
+        DataGenerator<T> columnDataGenerator = columnVirtualizer.wrap(column,
+                dataGenerator);
+        if (renderer instanceof ComponentRenderer) {
+            return gridDataGenerator.addDataGenerator(columnDataGenerator);
+        }
+        return rowDataCache.addDataGenerator(columnDataGenerator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void listenToDataProviderRefreshes() {
+        dataProviderRefreshRegistration = getDataProvider()
+                .addDataProviderListener(event -> {
+                    // A refreshed item may have a different sort value
+                    inMemorySorter.clear();
+                    /*
+                     * The data of a refreshed item is dropped even when the
+                     * item isn't active, since the cache keeps the data of
+                     * items that have been scrolled out of view
+                     */
+                    if (event instanceof DataRefreshEvent) {
+                        rowDataCache.invalidate(
+                                ((DataRefreshEvent<T>) event).getItem());
+                    } else {
+                        rowDataCache.clear();
+                    }
+                });
+    }
+
+    private void stopListeningToDataProviderRefreshes() {
+        if (dataProviderRefreshRegistration != null) {
+            dataProviderRefreshRegistration.remove();
+            dataProviderRefreshRegistration = null;
+        }
+    }
+
+    private String getSortOrderKey() {
+        return sortOrder.stream()
+                .map(order -> order.getSorted().getInternalId() + " "
+                        + order.getDirection())
+                .collect(Collectors.joining(","));
+    }
+
     private void setSortOrder(List<GridSortOrder<T>> order,
             boolean userOriginated) {
         Objects.requireNonNull(order, "Sort order list cannot be null");
@@ -2066,6 +3183,7 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         if (order.isEmpty()) {
             // Grid is not sorted anymore.
             getDataCommunicator().setBackEndSorting(Collections.emptyList());
+            sortOrderComparator = null;
             getDataCommunicator().setInMemorySorting(null);
             fireEvent(new SortEvent<>(this, new ArrayList<>(sortOrder),
                     userOriginated));
@@ -2078,7 +3196,8 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
     private void sort(boolean userOriginated) {
         // Set sort orders
         // In-memory comparator
-        getDataCommunicator().setInMemorySorting(createSortingComparator());
+        sortOrderComparator = createSortingComparator();
+        getDataCommunicator().setInMemorySorting(sortOrderComparator);
 
         // Back-end sort properties
         List<QuerySortOrder> sortProperties = new ArrayList<>();
@@ -2093,21 +3212,21 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
 
     /**
      * Creates a comparator for grid to sort rows.
+     * <p>
+     * The created comparator extracts the values of the sorted columns
+     * separately from comparing them, so that when the grid sorts its items
+     * in memory, the values are extracted only once per item.
      *
      * @return the comparator based on column sorting information.
      */
     protected SerializableComparator<T> createSortingComparator() {
-        BinaryOperator<SerializableComparator<T>> operator = (comparator1,
-                comparator2) -> {
-            /*
-             * thenComparing is defined to return a serializable comparator as
-             * long as both original comparators are also serializable
-             */
-            return comparator1.thenComparing(comparator2)::compare;
-        };
-        return sortOrder.stream().map(
-                order -> order.getSorted().getComparator(order.getDirection()))
-                .reduce(operator).orElse(null);
+        if (sortOrder.isEmpty()) {
+            return null;
+        }
+        SortKeyComparator<T> comparator = new SortKeyComparator<>();
+        sortOrder.forEach(order -> order.getSorted().addSortKey(comparator,
+                order.getDirection()));
+        return comparator;
     }
 
     /**
@@ -2146,7 +3265,7 @@ public class Grid<T> extends Component implements HasDataProvider<T>, HasStyle,
         getDataCommunicator().reset();
     }
 
-    private static int compareMaybeComparables(Object a, Object b) {
+    static int compareMaybeComparables(Object a, Object b) {
         if (hasCommonComparableBaseType(a, b)) {
             return compareComparables(a, b);
         }
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.vaadin.flow.component.grid.Grid.Column;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.function.SerializableComparator;
+import com.vaadin.flow.function.ValueProvider;
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.VaadinSession;
+
+/**
+ * Writes the contents of a {@link Grid} as comma-separated values.
+ * <p>
+ * The rows are fetched from the grid's data provider in the grid's current
+ * sort order, and the visible columns that have a
+ * {@link Column#setValueProvider(ValueProvider) value provider} are written
+ * in the order of {@link Grid#getColumns()}. The header texts of the columns
+ * are written as the first row, or the column keys for columns without a
+ * header text. Rows are fetched from a back end data provider one page at
+ * a time, and streamed from an in-memory data provider with a single fetch.
+ * Either way they are written out right away, so the export doesn't add to
+ * the memory used by the rows.
+ * <p>
+ * Text values that start with {@code =}, {@code +}, {@code -} or {@code @}
+ * are prefixed with a {@code '} so that spreadsheet applications don't
+ * evaluate them as formulas.
+ *
+ * @author Vaadin Ltd.
+ * @param <T>
+ *            the grid bean type
+ */
+public class GridCsvExporter<T> implements Serializable {
+
+    private final Grid<T> grid;
+    private char separator = ',';
+    private int pageSize = 1000;
+    private boolean headerRowIncluded = true;
+
+    /**
+     * Creates a new exporter for the given grid.
+     *
+     * @param grid
+     *            the grid to export, not {@code null}
+     */
+    public GridCsvExporter(Grid<T> grid) {
+        this.grid = Objects.requireNonNull(grid, "Grid cannot be null");
+    }
+
+    /**
+     * Sets the character that separates the values of a row. The default is
+     * {@code ','}.
+     *
+     * @param separator
+     *            the value separator
+     */
+    public void setSeparator(char separator) {
+        if (separator == '"' || separator == '\r' || separator == '\n') {
+            throw new IllegalArgumentException(
+                    "The separator should not be a quote or a line break. Was "
+                            + separator);
+        }
+        this.separator = separator;
+    }
+
+    /**
+     * Gets the character that separates the values of a row.
+     *
+     * @return the value separator
+     */
+    public char getSeparator() {
+        return separator;
+    }
+
+    /**
+     * Sets the number of rows fetched at a time from a back end data provider.
+     * The default is {@code 1000}.
+     *
+     * @param pageSize
+     *            the number of rows per fetch, greater than zero
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException(
+                    "The page size should be greater than zero. Was "
+                            + pageSize);
+        }
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Gets the number of rows fetched at a time from a back end data provider.
+     *
+     * @return the number of rows per fetch
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets whether the column headers are written as the first row. The
+     * default is {@code true}.
+     *
+     * @param headerRowIncluded
+     *            {@code true} to write the column headers, {@code false} to
+     *            only write the data rows
+     */
+    public void setHeaderRowIncluded(boolean headerRowIncluded) {
+        this.headerRowIncluded = headerRowIncluded;
+    }
+
+    /**
+     * Gets whether the column headers are written as the first row.
+     *
+     * @return {@code true} if the column headers are written, {@code false}
+     *         otherwise
+     */
+    public boolean isHeaderRowIncluded() {
+        return headerRowIncluded;
+    }
+
+    /**
+     * Writes the contents of the grid to the given stream in UTF-8. The state
+     * of the grid is read when this method is called, so the session of the
+     * grid should be locked like when accessing the grid otherwise. The
+     * stream is flushed but not closed.
+     *
+     * @param outputStream
+     *            the stream to write to, not {@code null}
+     * @throws IOException
+     *             if writing to the stream fails
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        Objects.requireNonNull(outputStream, "Output stream cannot be null");
+        createExport().write(outputStream);
+    }
+
+    /**
+     * Creates a resource that downloads the contents of the grid. The state of
+     * the grid is read while holding the session lock when the resource is
+     * requested, and the rows are then fetched and written without holding
+     * the lock, so that a long export doesn't block the UI.
+     *
+     * @param fileName
+     *            the file name of the resource, not {@code null}
+     * @return the created resource
+     */
+    public StreamResource createStreamResource(String fileName) {
+        StreamResource resource = new StreamResource(fileName,
+                (stream, session) -> createExport(session).write(stream));
+        resource.setContentType("text/csv");
+        return resource;
+    }
+
+    private Export<T> createExport(VaadinSession session) {
+        session.lock();
+        try {
+            return createExport();
+        } finally {
+            session.unlock();
+        }
+    }
+
+    private Export<T> createExport() {
+        List<Column<T>> columns = grid.getColumns().stream()
+                .filter(Column::isVisible)
+                .filter(column -> column.getValueProvider() != null)
+                .collect(Collectors.toList());
+        return new Export<>(this, grid.getDataProvider(), columns,
+                new ArrayList<>(grid.getDataCommunicator().getBackEndSorting()),
+                grid.getDataCommunicator().getInMemorySorting());
+    }
+
+    private static String getHeader(Column<?> column) {
+        HeaderRow defaultHeaderRow = column.getGrid().getDefaultHeaderRow();
+        if (defaultHeaderRow != null) {
+            String text = defaultHeaderRow.getCell(column).getColumn()
+                    .getHeaderText();
+            if (text != null && !text.isEmpty()) {
+                return text;
+            }
+        }
+        return column.getKey() == null ? "" : column.getKey();
+    }
+
+    /**
+     * The state of the grid captured for one export, so that the rows can be
+     * written without accessing the grid.
+     */
+    private static class Export<T> implements Serializable {
+        private final char separator;
+        private final int pageSize;
+        private final DataProvider<T, ?> dataProvider;
+        private final List<String> headers = new ArrayList<>();
+        private final List<ValueProvider<T, ?>> valueProviders = new ArrayList<>();
+        private final List<QuerySortOrder> backEndSorting;
+        private final SerializableComparator<T> inMemorySorting;
+
+        private Export(GridCsvExporter<T> exporter,
+                DataProvider<T, ?> dataProvider, List<Column<T>> columns,
+                List<QuerySortOrder> backEndSorting,
+                SerializableComparator<T> inMemorySorting) {
+            separator = exporter.separator;
+            pageSize = exporter.pageSize;
+            this.dataProvider = dataProvider;
+            for (Column<T> column : columns) {
+                if (exporter.headerRowIncluded) {
+                    headers.add(getHeader(column));
+                }
+                valueProviders.add(column.getValueProvider());
+            }
+            this.backEndSorting = backEndSorting;
+            this.inMemorySorting = inMemorySorting;
+        }
+
+        private void write(OutputStream outputStream) throws IOException {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    outputStream, StandardCharsets.UTF_8));
+            if (!headers.isEmpty()) {
+                writeRow(writer, headers);
+            }
+            try {
+                if (dataProvider.isInMemory()) {
+                    /*
+                     * An in-memory data provider filters and sorts all the
+                     * items for every fetch, so the rows are streamed from a
+                     * single fetch instead of fetching them page by page.
+                     */
+                    fetch(0, Integer.MAX_VALUE)
+                            .forEach(item -> writeItem(writer, item));
+                } else {
+                    int offset = 0;
+                    int fetched;
+                    do {
+                        List<T> page = fetch(offset, pageSize)
+                                .collect(Collectors.toList());
+                        for (T item : page) {
+                            writeItem(writer, item);
+                        }
+                        fetched = page.size();
+                        offset += fetched;
+                    } while (fetched == pageSize);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Stream<T> fetch(int offset, int limit) {
+            return ((DataProvider) dataProvider).fetch(new Query(offset,
+                    limit, backEndSorting, inMemorySorting, null));
+        }
+
+        private void writeItem(Writer writer, T item) {
+            List<Object> values = new ArrayList<>(valueProviders.size());
+            for (ValueProvider<T, ?> valueProvider : valueProviders) {
+                values.add(valueProvider.apply(item));
+            }
+            try {
+                writeRow(writer, values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeRow(Writer writer, List<?> values)
+                throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(separator);
+                }
+                Object value = values.get(i);
+                if (value != null) {
+                    writer.write(escape(value instanceof Number
+                            ? String.valueOf(value)
+                            : neutralizeFormula(String.valueOf(value))));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        /*
+         * Spreadsheet applications evaluate cells that start with these
+         * characters as formulas, so text values are prefixed to be read as
+         * text. Numbers are written as is to keep negative numbers intact.
+         */
+        private static String neutralizeFormula(String value) {
+            if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+                return "'" + value;
+            }
+            return value;
+        }
+
+        private String escape(String value) {
+            if (value.indexOf(separator) < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\r') < 0 && value.indexOf('\n') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -39,7 +39,8 @@ public interface GridMultiSelectionModel<T>
      * <p>
      * Default value is {@link #DEFAULT}, which means that the select all is
      * only visible if an in-memory data provider is used
-     * {@link DataProvider#isInMemory()}.
+     * {@link DataProvider#isInMemory()}, or if the selection storage is
+     * {@link SelectionStorage#LAZY_SELECT_ALL}.
      */
     public enum SelectAllCheckboxVisibility {
 
@@ -47,7 +48,9 @@ public interface GridMultiSelectionModel<T>
          * Shows the select all checkbox, regardless of data provider used.
          * <p>
          * <b>For a lazy data provider, selecting all will result in to all rows
-         * being fetched from backend to application memory!</b>
+         * being fetched from backend to application memory!</b> This doesn't
+         * apply to the {@link SelectionStorage#LAZY_SELECT_ALL} selection
+         * storage, which doesn't fetch the rows when selecting all.
          */
         VISIBLE,
 
@@ -63,12 +66,61 @@ public interface GridMultiSelectionModel<T>
          * <li>Visible, if the data provider is in-memory</li>
          * <li>Hidden, if the data provider is NOT in-memory (lazy)</li>
          * </ul>
+         * The checkbox is visible also with a lazy data provider when the
+         * selection storage is {@link SelectionStorage#LAZY_SELECT_ALL}.
          *
          * @see DataProvider#isInMemory()}.
          */
         DEFAULT;
     }
 
+    /**
+     * Storage mode for the selected items of the multiselection model.
+     * <p>
+     * Default value is {@link #ITEMS}.
+     */
+    public enum SelectionStorage {
+
+        /**
+         * Keeps references to the selected items. The selected items are
+         * returned in the order in which they were selected.
+         */
+        ITEMS,
+
+        /**
+         * Keeps only the {@link DataProvider#getId(Object) identifiers} of the
+         * selected items, so that the selected items themselves can be garbage
+         * collected. Numeric identifiers are stored as primitive values.
+         * <p>
+         * The selected items are fetched from the data provider when they are
+         * requested with {@link GridMultiSelectionModel#getSelectedItems()}, in
+         * the order of the data provider.
+         * <p>
+         * <b>For a lazy data provider, requesting the selected items will
+         * result in all rows being fetched from the backend!</b>
+         */
+        IDENTIFIERS,
+
+        /**
+         * Keeps the identifiers of the selected items like
+         * {@link #IDENTIFIERS}, but selecting all doesn't fetch the items from
+         * the data provider. Instead, all items are considered selected until
+         * they are deselected, and only the identifiers of the deselected
+         * items are kept. This makes selecting all feasible also with large
+         * lazy data providers.
+         * <p>
+         * <b>Items that are added to the data provider after selecting all are
+         * selected as well.</b>
+         * <p>
+         * After selecting all, the selected items are fetched page by page
+         * when iterating {@link GridMultiSelectionModel#getSelectedItems()}.
+         * <b>For a lazy data provider, iterating all the selected items or
+         * counting them after deselecting some will still result in rows
+         * being fetched from the backend.</b>
+         */
+        LAZY_SELECT_ALL;
+    }
+
     /**
      * Gets a wrapper to use this multiselection model as a multiselect in
      * {@link Binder}.
@@ -137,4 +189,24 @@ public interface GridMultiSelectionModel<T>
      * @return whether the selection column is frozen
      */
     boolean isSelectionColumnFrozen();
+
+    /**
+     * Sets how the selected items are stored by this selection model. Any
+     * existing selection is kept when changing the storage mode.
+     * <p>
+     * The default value is {@link SelectionStorage#ITEMS}.
+     *
+     * @param selectionStorage
+     *            the storage mode to use, not {@code null}
+     * @see SelectionStorage
+     */
+    void setSelectionStorage(SelectionStorage selectionStorage);
+
+    /**
+     * Gets the current storage mode for the selected items.
+     *
+     * @return the selection storage mode
+     * @see SelectionStorage
+     */
+    SelectionStorage getSelectionStorage();
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.KeyMapper;
+import com.vaadin.flow.function.SerializableSupplier;
+
+/**
+ * Key mapper that derives the keys of items with numeric
+ * {@link DataProvider#getId(Object) identifiers} directly from the
+ * identifiers, and keeps those items in a primitive map instead of the two
+ * string maps of the default key mapper. Items with other identifiers are
+ * mapped by the default key mapper.
+ * <p>
+ * Compact mapping is disabled by default, in which case this mapper behaves
+ * exactly like {@link KeyMapper}.
+ *
+ * @author Vaadin Ltd.
+ * @param <T>
+ *            the item type
+ */
+class IdentifierKeyMapper<T> extends KeyMapper<T> {
+
+    private static final String NUMERIC_KEY_PREFIX = "n";
+
+    private final SerializableSupplier<DataProvider<T, ?>> dataProviderSupplier;
+    private final LongHashMap<T> numericItems = new LongHashMap<>();
+    private boolean compact;
+
+    /**
+     * Creates a new key mapper with compact mapping disabled.
+     *
+     * @param dataProviderSupplier
+     *            supplier for the current data provider, used for identifying
+     *            the items, not {@code null}
+     */
+    IdentifierKeyMapper(
+            SerializableSupplier<DataProvider<T, ?>> dataProviderSupplier) {
+        this.dataProviderSupplier = dataProviderSupplier;
+    }
+
+    /**
+     * Sets whether the keys of items with numeric identifiers are derived from
+     * the identifiers. Changing the mode removes all mapped items.
+     *
+     * @param compact
+     *            {@code true} to derive the keys from numeric identifiers,
+     *            {@code false} to use the default key mapping
+     */
+    void setCompact(boolean compact) {
+        if (this.compact != compact) {
+            removeAll();
+            this.compact = compact;
+        }
+    }
+
+    boolean isCompact() {
+        return compact;
+    }
+
+    @Override
+    public String key(T item) {
+        Object id = getNumericId(item);
+        if (id == null) {
+            return super.key(item);
+        }
+        long numericId = ((Number) id).longValue();
+        numericItems.put(numericId, item);
+        return NUMERIC_KEY_PREFIX + numericId;
+    }
+
+    @Override
+    public boolean has(T item) {
+        Object id = getNumericId(item);
+        if (id == null) {
+            return super.has(item);
+        }
+        return numericItems.containsKey(((Number) id).longValue());
+    }
+
+    @Override
+    public T get(String key) {
+        Long numericId = parseKey(key);
+        if (numericId != null) {
+            return numericItems.get(numericId);
+        }
+        return super.get(key);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        Long numericId = parseKey(key);
+        if (numericId != null) {
+            return numericItems.containsKey(numericId);
+        }
+        return super.containsKey(key);
+    }
+
+    @Override
+    public void remove(T item) {
+        Object id = getNumericId(item);
+        if (id == null) {
+            super.remove(item);
+        } else {
+            numericItems.remove(((Number) id).longValue());
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        numericItems.clear();
+        super.removeAll();
+    }
+
+    @Override
+    public void refresh(T item) {
+        Object id = getNumericId(item);
+        if (id == null) {
+            super.refresh(item);
+        } else {
+            long numericId = ((Number) id).longValue();
+            if (numericItems.containsKey(numericId)) {
+                numericItems.put(numericId, item);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of items mapped by their numeric identifier.
+     *
+     * @return the number of compactly mapped items
+     */
+    int getNumericItemCount() {
+        return numericItems.size();
+    }
+
+    private Object getNumericId(T item) {
+        if (!compact || item == null) {
+            return null;
+        }
+        Object id = dataProviderSupplier.get().getId(item);
+        return ItemIdentifierSet.isNumeric(id) ? id : null;
+    }
+
+    private Long parseKey(String key) {
+        if (!compact || key == null || !key.startsWith(NUMERIC_KEY_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(key.substring(NUMERIC_KEY_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import com.vaadin.flow.function.SerializableComparator;
+import com.vaadin.flow.function.SerializableSupplier;
+
+/**
+ * Sorts all the items of an in-memory data provider at once, and keeps the
+ * sorted order of the most recently used sort orders so that fetching a range
+ * of sorted items only takes the items of the range.
+ * <p>
+ * The items are fetched once and kept in their unsorted order, and each
+ * sorted order is kept as an array of indexes to the unsorted items. The
+ * cached items must be {@link #clear() cleared} whenever the items or their
+ * sort values may have changed.
+ * <p>
+ * When only the first rows of a sort order are needed, only those are found
+ * with a bounded heap instead of sorting all the items. All the items are
+ * sorted once rows deeper in the order are needed. The items are sorted in
+ * the calling thread, unless parallel sorting is enabled, in which case
+ * they are sorted in parallel in {@link ForkJoinPool#commonPool()}, shared
+ * by all the sorters. The calling thread takes part in the sort and waits for
+ * it to complete, and the value providers and comparators of the sort order
+ * are run concurrently in the pool threads.
+ *
+ * @author Vaadin Ltd.
+ * @param <T>
+ *            the item type
+ */
+class InMemorySorter<T> implements Serializable {
+
+    private static final int MAX_SORT_ORDERS = 3;
+
+    /*
+     * Only the first rows are searched for when at most this fraction of all
+     * the rows is needed.
+     */
+    private static final int PARTIAL_SORT_DIVISOR = 8;
+
+    private Object[] items;
+    private final LinkedHashMap<String, SortedItems<T>> sortedItems = new LinkedHashMap<String, SortedItems<T>>(
+            16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<String, SortedItems<T>> eldest) {
+            return size() > MAX_SORT_ORDERS;
+        }
+    };
+
+    /*
+     * Incremented whenever the cached items are cleared, so that items
+     * fetched in the background before clearing are not cached afterwards.
+     */
+    private int version;
+
+    private boolean parallel;
+
+    /**
+     * The items of the unsorted array in the order of an array of indexes.
+     * The list is shorter than the array when only the first items of the
+     * order have been found.
+     */
+    private static class SortedItems<T> extends AbstractList<T>
+            implements RandomAccess, Serializable {
+        private final Object[] items;
+        private final int[] sortedIndexes;
+
+        private SortedItems(Object[] items, int[] sortedIndexes) {
+            this.items = items;
+            this.sortedIndexes = sortedIndexes;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) items[sortedIndexes[index]];
+        }
+
+        @Override
+        public int size() {
+            return sortedIndexes.length;
+        }
+
+        private boolean isComplete() {
+            return sortedIndexes.length == items.length;
+        }
+    }
+
+    /**
+     * Sets whether the items are sorted in parallel in the common fork-join
+     * pool instead of in the calling thread.
+     *
+     * @param parallel
+     *            {@code true} to sort in parallel, {@code false} to sort in
+     *            the calling thread
+     */
+    void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Gets the first items sorted by the given sort order, sorting them if
+     * the order is not cached.
+     *
+     * @param sortOrderKey
+     *            the string that identifies the sort order
+     * @param items
+     *            supplier for all the items in their unsorted order, used if
+     *            the items are not cached
+     * @param comparator
+     *            the comparator of the sort order
+     * @param count
+     *            the number of first items needed
+     * @return the sorted items, unmodifiable, with at least the given number
+     *         of first items or all the items if there are fewer items
+     */
+    List<T> getSortedItems(String sortOrderKey,
+            SerializableSupplier<Stream<T>> items,
+            SerializableComparator<T> comparator, int count) {
+        return getSortedItems(getVersion(), sortOrderKey, items, comparator,
+                count);
+    }
+
+    /**
+     * Gets the first items sorted by the given sort order, like
+     * {@link #getSortedItems(String, SerializableSupplier, SerializableComparator, int)},
+     * but only using and updating the cache if it has not been cleared since
+     * the given version was read. This may be called from any thread. The
+     * items are fetched and sorted without holding the lock of the sorter, so
+     * threads sorting at the same time don't wait for each other, and the
+     * result is only put in the cache afterwards.
+     *
+     * @param version
+     *            the version of the cache the caller expects
+     * @param sortOrderKey
+     *            the string that identifies the sort order
+     * @param items
+     *            supplier for all the items in their unsorted order, used if
+     *            the items are not cached
+     * @param comparator
+     *            the comparator of the sort order
+     * @param count
+     *            the number of first items needed
+     * @return the sorted items, unmodifiable, with at least the given number
+     *         of first items or all the items if there are fewer items
+     * @see #getVersion()
+     */
+    List<T> getSortedItems(int version, String sortOrderKey,
+            SerializableSupplier<Stream<T>> items,
+            SerializableComparator<T> comparator, int count) {
+        boolean current;
+        Object[] allItems;
+        SortedItems<T> sorted;
+        synchronized (this) {
+            current = version == this.version;
+            // The items may have changed since a stale version was read, so
+            // neither the cached items nor the result can be used
+            allItems = current ? this.items : null;
+            sorted = current ? sortedItems.get(sortOrderKey) : null;
+        }
+        if (sorted != null
+                && (sorted.isComplete() || count <= sorted.size())) {
+            return sorted;
+        }
+        if (allItems == null) {
+            allItems = items.get().toArray();
+        }
+        if (!current) {
+            return new SortedItems<>(allItems,
+                    sortIndexes(allItems, comparator));
+        }
+        int length = allItems.length;
+        if (count <= length / PARTIAL_SORT_DIVISOR) {
+            // Find twice as many rows as before to not search again for
+            // every page when scrolling down
+            int partialCount = sorted == null ? count
+                    : Math.max(count, 2 * sorted.size());
+            sorted = new SortedItems<>(allItems, topIndexes(allItems,
+                    comparator, Math.min(partialCount, length)));
+        } else {
+            sorted = new SortedItems<>(allItems,
+                    sortIndexes(allItems, comparator));
+        }
+        publish(version, sortOrderKey, allItems, sorted);
+        return sorted;
+    }
+
+    /*
+     * Caches the items and their sorted order, unless the cache has been
+     * cleared while sorting or another thread has already cached at least as
+     * many rows of the same order.
+     */
+    private synchronized void publish(int version, String sortOrderKey,
+            Object[] allItems, SortedItems<T> sorted) {
+        if (version != this.version) {
+            return;
+        }
+        if (items == null) {
+            items = allItems;
+        }
+        SortedItems<T> cached = sortedItems.get(sortOrderKey);
+        if (cached == null || !cached.isComplete()
+                && cached.size() < sorted.size()) {
+            sortedItems.put(sortOrderKey, sorted);
+        }
+    }
+
+    /**
+     * Gets the version of the cached items, which changes whenever the cache
+     * is {@link #clear() cleared}.
+     *
+     * @return the version of the cached items
+     */
+    synchronized int getVersion() {
+        return version;
+    }
+
+    /**
+     * Drops all cached items and sorted orders.
+     */
+    synchronized void clear() {
+        items = null;
+        sortedItems.clear();
+        version++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int[] sortIndexes(Object[] items,
+            SerializableComparator<T> comparator) {
+        // A parallel sort runs in the common pool when called from a thread
+        // that is not in a pool
+        return sortIndexes((T[]) items, comparator, parallel);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> int[] topIndexes(Object[] items,
+            SerializableComparator<T> comparator, int count) {
+        T[] array = (T[]) items;
+        if (comparator instanceof SortKeyComparator) {
+            return ((SortKeyComparator<T>) comparator).topIndexes(array,
+                    count);
+        }
+        Comparator<Integer> byItem = (a, b) -> {
+            int result = comparator.compare(array[a], array[b]);
+            return result != 0 ? result : Integer.compare(a, b);
+        };
+        // The last of the first items found so far is at the head
+        PriorityQueue<Integer> first = new PriorityQueue<>(count + 1,
+                byItem.reversed());
+        for (int i = 0; i < array.length; i++) {
+            if (first.size() < count) {
+                first.add(i);
+            } else if (count > 0 && byItem.compare(i, first.peek()) < 0) {
+                first.poll();
+                first.add(i);
+            }
+        }
+        int[] top = new int[first.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = first.poll();
+        }
+        return top;
+    }
+
+    private static <T> int[] sortIndexes(T[] items,
+            SerializableComparator<T> comparator, boolean parallel) {
+        if (comparator instanceof SortKeyComparator) {
+            return ((SortKeyComparator<T>) comparator).sortIndexes(items,
+                    parallel);
+        }
+        Integer[] indexes = new Integer[items.length];
+        Arrays.setAll(indexes, i -> i);
+        if (parallel) {
+            Arrays.parallelSort(indexes,
+                    (a, b) -> comparator.compare(items[a], items[b]));
+        } else {
+            Arrays.sort(indexes,
+                    (a, b) -> comparator.compare(items[a], items[b]));
+        }
+        return Arrays.stream(indexes).mapToInt(Integer::intValue).toArray();
+    }
+}
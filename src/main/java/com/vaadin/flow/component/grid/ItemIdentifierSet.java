@@ -0,0 +1,204 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.function.SerializableSupplier;
+
+/**
+ * A set of items that only stores the {@link DataProvider#getId(Object)
+ * identifiers} of the items instead of the items themselves. Numeric
+ * identifiers are stored as primitive values.
+ * <p>
+ * Membership checks, additions and removals only need the identifier of the
+ * given item. Iterating the set fetches the items from the data provider, so
+ * the iteration order is the order of the data provider, not the order in
+ * which the items were added. The size of the set is counted the same way,
+ * so identifiers of items that the data provider no longer has are neither
+ * iterated nor counted.
+ *
+ * @author Vaadin Ltd.
+ * @param <T>
+ *            the item type
+ */
+class ItemIdentifierSet<T> extends AbstractSet<T> implements Serializable {
+
+    private final SerializableSupplier<DataProvider<T, ?>> dataProviderSupplier;
+
+    private final LongHashSet numericIds;
+    private final Set<Object> otherIds;
+
+    /**
+     * Creates a new empty set using the given data provider for resolving
+     * item identifiers and for fetching the items when iterating.
+     *
+     * @param dataProviderSupplier
+     *            supplier for the current data provider, not {@code null}
+     */
+    ItemIdentifierSet(
+            SerializableSupplier<DataProvider<T, ?>> dataProviderSupplier) {
+        this(dataProviderSupplier, new LongHashSet(), new HashSet<>());
+    }
+
+    private ItemIdentifierSet(
+            SerializableSupplier<DataProvider<T, ?>> dataProviderSupplier,
+            LongHashSet numericIds, Set<Object> otherIds) {
+        this.dataProviderSupplier = dataProviderSupplier;
+        this.numericIds = numericIds;
+        this.otherIds = otherIds;
+    }
+
+    /**
+     * Creates a copy of this set. Only the identifiers are copied, the items
+     * are not fetched.
+     *
+     * @return a new set with the same identifiers as this set
+     */
+    public ItemIdentifierSet<T> copy() {
+        return new ItemIdentifierSet<>(dataProviderSupplier,
+                numericIds.copy(), new HashSet<>(otherIds));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean contains(Object item) {
+        if (item == null) {
+            return false;
+        }
+        Object id = getId((T) item);
+        if (isNumeric(id)) {
+            return numericIds.contains(((Number) id).longValue());
+        }
+        return otherIds.contains(id);
+    }
+
+    @Override
+    public boolean add(T item) {
+        Object id = getId(item);
+        if (isNumeric(id)) {
+            return numericIds.add(((Number) id).longValue());
+        }
+        return otherIds.add(id);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object item) {
+        if (item == null) {
+            return false;
+        }
+        Object id = getId((T) item);
+        if (isNumeric(id)) {
+            return numericIds.remove(((Number) id).longValue());
+        }
+        return otherIds.remove(id);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> items) {
+        // Never iterate this set, as it would fetch all the items
+        boolean modified = false;
+        for (Object item : items) {
+            modified |= remove(item);
+        }
+        return modified;
+    }
+
+    @Override
+    public void clear() {
+        numericIds.clear();
+        otherIds.clear();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Iterator<T> items = iterator(); items.hasNext(); items.next()) {
+            size++;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return idCount() == 0 || !iterator().hasNext();
+    }
+
+    /**
+     * Gets the number of stored identifiers without fetching the items. This
+     * includes the identifiers of items that the data provider no longer has.
+     *
+     * @return the number of identifiers in this set
+     */
+    int idCount() {
+        return numericIds.size() + otherIds.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        // Fetching stops once all the stored identifiers have been found
+        Iterator<T> items = idCount() == 0 ? Collections.emptyIterator()
+                : dataProviderSupplier.get().fetch(new Query<>())
+                        .filter(this::contains).limit(idCount()).iterator();
+        return new Iterator<T>() {
+            private T current;
+            private boolean removable;
+
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!items.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                current = items.next();
+                removable = true;
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if (!removable) {
+                    throw new IllegalStateException();
+                }
+                ItemIdentifierSet.this.remove(current);
+                removable = false;
+            }
+        };
+    }
+
+    private Object getId(T item) {
+        return dataProviderSupplier.get().getId(item);
+    }
+
+    static boolean isNumeric(Object id) {
+        return id instanceof Long || id instanceof Integer
+                || id instanceof Short || id instanceof Byte;
+    }
+}
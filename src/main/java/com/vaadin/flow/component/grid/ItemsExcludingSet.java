@@ -0,0 +1,160 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.Query;
+
+/**
+ * A read-only set of all the items of a data provider, except the given
+ * excluded items. The items are not loaded into memory, they are fetched from
+ * the data provider page by page when the set is iterated.
+ * <p>
+ * Any item that is not excluded is considered to be contained in this set.
+ *
+ * @author Vaadin Ltd.
+ * @param <T>
+ *            the item type
+ */
+class ItemsExcludingSet<T> extends AbstractSet<T> implements Serializable {
+
+    static final int PAGE_SIZE = 50;
+
+    private final DataProvider<T, ?> dataProvider;
+    private final ItemIdentifierSet<T> excludedItems;
+
+    /**
+     * Creates a new set of the items in the given data provider.
+     *
+     * @param dataProvider
+     *            the data provider that has the items, not {@code null}
+     * @param excludedItems
+     *            the items that are not in this set, not {@code null}
+     */
+    ItemsExcludingSet(DataProvider<T, ?> dataProvider,
+            ItemIdentifierSet<T> excludedItems) {
+        this.dataProvider = dataProvider;
+        this.excludedItems = excludedItems;
+    }
+
+    @Override
+    public boolean contains(Object item) {
+        return !excludedItems.contains(item);
+    }
+
+    @Override
+    public int size() {
+        int size = dataProvider.size(new Query<>());
+        if (excludedItems.idCount() == 0) {
+            return size;
+        }
+        /*
+         * Excluded items that have been removed from the data provider since
+         * don't reduce the size, and the excluded set only counts the ones
+         * still present.
+         */
+        return size - excludedItems.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> items = allItems();
+        return new Iterator<T>() {
+            private T next;
+            private boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                while (!hasNext && items.hasNext()) {
+                    T item = items.next();
+                    if (!excludedItems.contains(item)) {
+                        next = item;
+                        hasNext = true;
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = false;
+                return next;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        // The default spliterator would count the items before streaming
+        return Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.DISTINCT);
+    }
+
+    /*
+     * In-memory providers are streamed as is, lazy ones are fetched one page
+     * at a time so that iterating doesn't load the whole backend at once.
+     */
+    private Iterator<T> allItems() {
+        if (dataProvider.isInMemory()) {
+            return dataProvider.fetch(new Query<>()).iterator();
+        }
+        return new Iterator<T>() {
+            private int offset;
+            private Iterator<T> page = Collections.emptyIterator();
+            private boolean lastPage;
+
+            @Override
+            public boolean hasNext() {
+                if (!page.hasNext() && !lastPage) {
+                    List<T> items = fetchPage(offset)
+                            .collect(Collectors.toList());
+                    offset += items.size();
+                    lastPage = items.size() < PAGE_SIZE;
+                    page = items.iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Stream<T> fetchPage(int offset) {
+        return ((DataProvider) dataProvider).fetch(new Query(offset,
+                PAGE_SIZE, Collections.emptyList(), null, null));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+
+/**
+ * A hash map from primitive {@code long} keys to objects, using open
+ * addressing with linear probing. Used for looking items up by their numeric
+ * identifiers without boxing each identifier into a separate object.
+ *
+ * @author Vaadin Ltd.
+ * @param <V>
+ *            the value type
+ */
+class LongHashMap<V> implements Serializable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /*
+     * Zero marks an empty slot in the key table, so the value of the key zero
+     * is tracked separately.
+     */
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int mask = INITIAL_CAPACITY - 1;
+    private int tableSize;
+    private boolean containsZero;
+    private V zeroValue;
+
+    /**
+     * Gets the value of the given key.
+     *
+     * @param key
+     *            the key to look up
+     * @return the value of the key, or {@code null} if the key is not in this
+     *         map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        for (int i = indexOf(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets whether the given key is in this map.
+     *
+     * @param key
+     *            the key to check
+     * @return {@code true} if the key is in this map, {@code false} otherwise
+     */
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        for (int i = indexOf(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the value of the given key.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value, not {@code null}
+     */
+    public void put(long key, V value) {
+        if (key == 0) {
+            containsZero = true;
+            zeroValue = value;
+            return;
+        }
+        if ((tableSize + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int i = indexOf(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        tableSize++;
+    }
+
+    /**
+     * Removes the given key from this map.
+     *
+     * @param key
+     *            the key to remove
+     * @return {@code true} if the map contained the key, {@code false}
+     *         otherwise
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            boolean removed = containsZero;
+            containsZero = false;
+            zeroValue = null;
+            return removed;
+        }
+        for (int i = indexOf(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                closeGap(i);
+                tableSize--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of keys in this map.
+     *
+     * @return the size of this map
+     */
+    public int size() {
+        return containsZero ? tableSize + 1 : tableSize;
+    }
+
+    /**
+     * Removes all keys from this map.
+     */
+    public void clear() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+        tableSize = 0;
+        containsZero = false;
+        zeroValue = null;
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /*
+     * Moves the following entries of the probe sequence backwards into the
+     * freed slot, so that lookups never stop at a hole.
+     */
+    private void closeGap(int gap) {
+        int i = (gap + 1) & mask;
+        while (keys[i] != 0) {
+            int home = indexOf(keys[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = indexOf(oldKeys[j]);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
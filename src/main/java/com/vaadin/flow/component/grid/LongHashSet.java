@@ -0,0 +1,187 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A hash set of primitive {@code long} values, using open addressing with
+ * linear probing. Used for storing numeric item identifiers without boxing
+ * each of them into a separate object.
+ *
+ * @author Vaadin Ltd.
+ */
+class LongHashSet implements Serializable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /*
+     * Zero marks an empty slot in the table, so the value zero itself is
+     * tracked separately.
+     */
+    private long[] table = new long[INITIAL_CAPACITY];
+    private int mask = INITIAL_CAPACITY - 1;
+    private int tableSize;
+    private boolean containsZero;
+
+    /**
+     * Gets whether the given value is in this set.
+     *
+     * @param value
+     *            the value to check
+     * @return {@code true} if the value is in this set, {@code false}
+     *         otherwise
+     */
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        for (int i = indexOf(value); table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the given value to this set.
+     *
+     * @param value
+     *            the value to add
+     * @return {@code true} if the set didn't contain the value before,
+     *         {@code false} otherwise
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+        if ((tableSize + 1) * 2 > table.length) {
+            resize(table.length * 2);
+        }
+        int i = indexOf(value);
+        while (table[i] != 0) {
+            if (table[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = value;
+        tableSize++;
+        return true;
+    }
+
+    /**
+     * Removes the given value from this set.
+     *
+     * @param value
+     *            the value to remove
+     * @return {@code true} if the set contained the value, {@code false}
+     *         otherwise
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            boolean removed = containsZero;
+            containsZero = false;
+            return removed;
+        }
+        for (int i = indexOf(value); table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == value) {
+                closeGap(i);
+                tableSize--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of values in this set.
+     *
+     * @return the size of this set
+     */
+    public int size() {
+        return containsZero ? tableSize + 1 : tableSize;
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        if (table.length > INITIAL_CAPACITY) {
+            table = new long[INITIAL_CAPACITY];
+            mask = INITIAL_CAPACITY - 1;
+        } else {
+            Arrays.fill(table, 0);
+        }
+        tableSize = 0;
+        containsZero = false;
+    }
+
+    /**
+     * Creates a copy of this set.
+     *
+     * @return a new set with the same values as this set
+     */
+    public LongHashSet copy() {
+        LongHashSet copy = new LongHashSet();
+        copy.table = table.clone();
+        copy.mask = mask;
+        copy.tableSize = tableSize;
+        copy.containsZero = containsZero;
+        return copy;
+    }
+
+    private int indexOf(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /*
+     * Moves the following entries of the probe sequence backwards into the
+     * freed slot, so that lookups never stop at a hole.
+     */
+    private void closeGap(int gap) {
+        int i = (gap + 1) & mask;
+        while (table[i] != 0) {
+            int home = indexOf(table[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = table[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        table[gap] = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldTable = table;
+        table = new long[capacity];
+        mask = capacity - 1;
+        for (long value : oldTable) {
+            if (value != 0) {
+                int i = indexOf(value);
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = value;
+            }
+        }
+    }
+}
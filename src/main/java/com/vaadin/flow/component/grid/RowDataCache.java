@@ -0,0 +1,232 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.vaadin.flow.data.provider.CompositeDataGenerator;
+import com.vaadin.flow.data.provider.DataGenerator;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.HasDataGenerators;
+import com.vaadin.flow.function.SerializableSupplier;
+import com.vaadin.flow.shared.Registration;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+
+/**
+ * Data generator that keeps the data generated by its child generators for
+ * the most recently used items, so that sending an item again doesn't run the
+ * generators again.
+ * <p>
+ * The entries are identified by the {@link DataProvider#getId(Object)
+ * identifier} of the item. An entry is dropped when the item is refreshed,
+ * and all entries are dropped when a generator is added or removed or when
+ * {@link #clear()} is called. Destroying the data of an item doesn't drop its
+ * entry, since the item is likely to be sent again when scrolling back.
+ * <p>
+ * The cache is disabled until it is given a positive maximum number of rows.
+ * When a memory limit is set, the memory used by the cached data is estimated
+ * from the length of its JSON presentation. The least recently used entries
+ * are dropped whenever either limit is exceeded.
+ *
+ * @author Vaadin Ltd.
+ * @param <T>
+ *            the item type
+ */
+class RowDataCache<T> implements DataGenerator<T>, HasDataGenerators<T> {
+
+    private final CompositeDataGenerator<T> generators = new CompositeDataGenerator<>();
+    private final SerializableSupplier<DataProvider<T, ?>> dataProviderSupplier;
+
+    private final LinkedHashMap<Object, CachedRow> rows = new LinkedHashMap<>(
+            16, 0.75f, true);
+    private int maxRows;
+    private long maxSize = Long.MAX_VALUE;
+    private long size;
+
+    private static class CachedRow implements Serializable {
+        private final JsonObject data;
+        private final int size;
+
+        private CachedRow(JsonObject data, int size) {
+            this.data = data;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Creates a new disabled cache.
+     *
+     * @param dataProviderSupplier
+     *            supplier for the current data provider, used for identifying
+     *            the items, not {@code null}
+     */
+    RowDataCache(
+            SerializableSupplier<DataProvider<T, ?>> dataProviderSupplier) {
+        this.dataProviderSupplier = dataProviderSupplier;
+    }
+
+    @Override
+    public Registration addDataGenerator(DataGenerator<T> generator) {
+        clear();
+        Registration registration = generators.addDataGenerator(generator);
+        return () -> {
+            clear();
+            registration.remove();
+        };
+    }
+
+    @Override
+    public void removeDataGenerator(DataGenerator<T> generator) {
+        clear();
+        generators.removeDataGenerator(generator);
+    }
+
+    @Override
+    public void generateData(T item, JsonObject jsonObject) {
+        if (maxRows <= 0) {
+            generators.generateData(item, jsonObject);
+            return;
+        }
+        Object id = getId(item);
+        CachedRow row = rows.get(id);
+        if (row == null) {
+            JsonObject data = Json.createObject();
+            generators.generateData(item, data);
+            row = new CachedRow(data, estimateSize(data));
+            rows.put(id, row);
+            size += row.size;
+            evict();
+        }
+        for (String key : row.data.keys()) {
+            jsonObject.put(key, row.data.get(key));
+        }
+    }
+
+    @Override
+    public void refreshData(T item) {
+        invalidate(item);
+        generators.refreshData(item);
+    }
+
+    @Override
+    public void destroyData(T item) {
+        generators.destroyData(item);
+    }
+
+    @Override
+    public void destroyAllData() {
+        generators.destroyAllData();
+    }
+
+    /**
+     * Drops the cached data of the given item.
+     *
+     * @param item
+     *            the item whose data to drop
+     */
+    void invalidate(T item) {
+        if (item == null || rows.isEmpty()) {
+            return;
+        }
+        CachedRow row = rows.remove(getId(item));
+        if (row != null) {
+            size -= row.size;
+        }
+    }
+
+    /**
+     * Drops all cached data.
+     */
+    void clear() {
+        rows.clear();
+        size = 0;
+    }
+
+    /**
+     * Sets the maximum number of rows to cache. Zero disables the cache.
+     *
+     * @param maxRows
+     *            the maximum number of cached rows, not negative
+     */
+    void setMaxRows(int maxRows) {
+        if (maxRows < 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of cached rows cannot be negative");
+        }
+        this.maxRows = maxRows;
+        evict();
+    }
+
+    int getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Sets the maximum estimated memory use of the cached data, in bytes.
+     *
+     * @param maxSize
+     *            the maximum size of the cached data, greater than zero
+     */
+    void setMaxSize(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum size of the cache must be greater than zero");
+        }
+        if (this.maxSize == Long.MAX_VALUE) {
+            // The rows cached without a limit have no size estimate
+            clear();
+        }
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    long getMaxSize() {
+        return maxSize;
+    }
+
+    int getRowCount() {
+        return rows.size();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Object, CachedRow>> iterator = rows.entrySet()
+                .iterator();
+        while (iterator.hasNext() && (rows.size() > maxRows || size > maxSize)) {
+            size -= iterator.next().getValue().size;
+            iterator.remove();
+        }
+    }
+
+    /*
+     * Two bytes per character of the JSON presentation. Serializing the data
+     * is skipped when there is no memory limit.
+     */
+    private int estimateSize(JsonObject data) {
+        if (maxSize == Long.MAX_VALUE) {
+            return 0;
+        }
+        return data.toJson().length() * 2;
+    }
+
+    private Object getId(T item) {
+        return dataProviderSupplier.get().getId(item);
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+import com.vaadin.flow.function.SerializableComparator;
+import com.vaadin.flow.function.SerializableSupplier;
+import com.vaadin.flow.function.ValueProvider;
+
+/**
+ * Comparator for sorting items by a list of sort keys, each extracted from
+ * the item with a value provider and compared with a comparator of its own.
+ * <p>
+ * By default the keys are extracted from both items for every comparison.
+ * While running an action with {@link #withExtractedKeys(SerializableSupplier)},
+ * the keys of each item are extracted only once and reused for all the
+ * comparisons of that item in the current thread, so that sorting {@code n}
+ * items runs the value providers {@code n} times instead of
+ * {@code n log n} times.
+ *
+ * @author Vaadin Ltd.
+ * @param <T>
+ *            the item type
+ */
+class SortKeyComparator<T> implements SerializableComparator<T> {
+
+    private final List<ValueProvider<T, ?>> keyExtractors = new ArrayList<>();
+    private final List<Comparator<Object>> keyComparators = new ArrayList<>();
+
+    private transient ThreadLocal<Map<T, Object[]>> extractedKeys = new ThreadLocal<>();
+
+    /**
+     * Comparator for the values of columns that don't define how to compare
+     * them. Values of the same {@link Comparable} class are compared in their
+     * natural order, and other values by their string presentation.
+     * <p>
+     * The comparator has no state, so the same instance can be used by
+     * several threads at once, for example when sorting in parallel.
+     */
+    static class ValueComparator implements Comparator<Object>, Serializable {
+
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        public int compare(Object a, Object b) {
+            if (a instanceof Comparable<?> && b != null
+                    && a.getClass() == b.getClass()) {
+                return ((Comparable) a).compareTo(b);
+            }
+            return Grid.compareMaybeComparables(a, b);
+        }
+    }
+
+    /**
+     * Adds a sort key that is compared when the items are equal by all the
+     * previously added keys.
+     *
+     * @param keyExtractor
+     *            the value provider that extracts the key from an item, not
+     *            {@code null}
+     * @param keyComparator
+     *            the comparator for the extracted keys, not {@code null}
+     * @param descending
+     *            {@code true} to reverse the order of the keys
+     */
+    @SuppressWarnings("unchecked")
+    void addKey(ValueProvider<T, ?> keyExtractor,
+            Comparator<?> keyComparator, boolean descending) {
+        Comparator<Object> comparator = (Comparator<Object>) keyComparator;
+        keyExtractors.add(keyExtractor);
+        keyComparators.add(
+                descending ? Collections.reverseOrder(comparator) : comparator);
+    }
+
+    /**
+     * Gets the number of sort keys.
+     *
+     * @return the number of sort keys
+     */
+    int getKeyCount() {
+        return keyExtractors.size();
+    }
+
+    @Override
+    public int compare(T a, T b) {
+        Map<T, Object[]> keys = extractedKeys.get();
+        if (keys == null) {
+            for (int i = 0; i < keyComparators.size(); i++) {
+                ValueProvider<T, ?> keyExtractor = keyExtractors.get(i);
+                int result = keyComparators.get(i).compare(
+                        keyExtractor.apply(a), keyExtractor.apply(b));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+        Object[] aKeys = keys.computeIfAbsent(a, this::extractKeys);
+        Object[] bKeys = keys.computeIfAbsent(b, this::extractKeys);
+        for (int i = 0; i < aKeys.length; i++) {
+            int result = keyComparators.get(i).compare(aKeys[i], bKeys[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Runs the given action so that the keys of each compared item are
+     * extracted only once during it. The extracted keys are dropped when the
+     * action completes, so the action should not return a stream that sorts
+     * lazily.
+     *
+     * @param action
+     *            the action to run
+     * @param <R>
+     *            the result type
+     * @return the result of the action
+     */
+    <R> R withExtractedKeys(SerializableSupplier<R> action) {
+        ThreadLocal<Map<T, Object[]>> threadKeys = extractedKeys;
+        if (threadKeys.get() != null) {
+            return action.get();
+        }
+        threadKeys.set(new IdentityHashMap<>());
+        try {
+            return action.get();
+        } finally {
+            threadKeys.remove();
+        }
+    }
+
+    /**
+     * Sorts the given items with this comparator, without modifying the
+     * array. The keys of all items are extracted first, and the items are then
+     * sorted by the extracted keys. The sort is stable.
+     * <p>
+     * When sorting in parallel, the keys are extracted and sorted in the
+     * {@link java.util.concurrent.ForkJoinPool} of the calling thread, or in
+     * the common pool if the calling thread isn't a pool thread. The value
+     * providers and comparators of the keys are then run concurrently.
+     *
+     * @param items
+     *            the items to sort
+     * @param parallel
+     *            {@code true} to sort in parallel, {@code false} to sort in
+     *            the calling thread
+     * @return the indexes of the items in the array in their sorted order
+     */
+    int[] sortIndexes(T[] items, boolean parallel) {
+        // The index of the item is kept as the first element, followed by
+        // the keys of the item
+        Object[][] decorated = new Object[items.length][];
+        IntStream indexes = IntStream.range(0, items.length);
+        if (parallel) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> {
+            Object[] keys = new Object[keyExtractors.size() + 1];
+            keys[0] = i;
+            for (int j = 1; j < keys.length; j++) {
+                keys[j] = keyExtractors.get(j - 1).apply(items[i]);
+            }
+            decorated[i] = keys;
+        });
+        Comparator<Object[]> comparator = (a, b) -> {
+            for (int j = 1; j < a.length; j++) {
+                int result = keyComparators.get(j - 1).compare(a[j], b[j]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        };
+        if (parallel) {
+            Arrays.parallelSort(decorated, comparator);
+        } else {
+            Arrays.sort(decorated, comparator);
+        }
+        int[] sorted = new int[items.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = (Integer) decorated[i][0];
+        }
+        return sorted;
+    }
+
+    /**
+     * Finds the first items of the given items in the order of this
+     * comparator, without sorting all the items. The keys of each item are
+     * extracted once, and only the keys of the items among the first ones
+     * found so far are kept. Ties are ordered like in a stable sort.
+     *
+     * @param items
+     *            the items to search
+     * @param count
+     *            the number of first items to find, not greater than the
+     *            number of items
+     * @return the indexes of the first items in the array in their sorted
+     *         order
+     */
+    int[] topIndexes(T[] items, int count) {
+        // The index of the item is kept as the first element, followed by
+        // the keys of the item
+        Comparator<Object[]> comparator = (a, b) -> {
+            for (int j = 1; j < a.length; j++) {
+                int result = keyComparators.get(j - 1).compare(a[j], b[j]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return Integer.compare((Integer) a[0], (Integer) b[0]);
+        };
+        // The last of the first items found so far is at the head
+        PriorityQueue<Object[]> first = new PriorityQueue<>(count + 1,
+                comparator.reversed());
+        Object[] keys = null;
+        for (int i = 0; i < items.length; i++) {
+            if (keys == null) {
+                keys = new Object[keyExtractors.size() + 1];
+            }
+            keys[0] = i;
+            for (int j = 1; j < keys.length; j++) {
+                keys[j] = keyExtractors.get(j - 1).apply(items[i]);
+            }
+            if (first.size() < count) {
+                first.add(keys);
+                keys = null;
+            } else if (count > 0
+                    && comparator.compare(keys, first.peek()) < 0) {
+                // Reuse the array of the dropped item for the next item
+                Object[] dropped = first.poll();
+                first.add(keys);
+                keys = dropped;
+            }
+        }
+        int[] top = new int[first.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = (Integer) first.poll()[0];
+        }
+        return top;
+    }
+
+    private Object[] extractKeys(T item) {
+        Object[] keys = new Object[keyExtractors.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keyExtractors.get(i).apply(item);
+        }
+        return keys;
+    }
+
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        extractedKeys = new ThreadLocal<>();
+    }
+}
@@ -6,6 +6,8 @@ window.Vaadin.Flow.gridConnector = {
     }
     const pageCallbacks = {};
     const cache = {};
+    // Location of each cached item by key: {page, index}
+    const keyToCacheLocation = {};
     let lastRequestedRange = [0, 0];
 
     const validSelectionModes = ['SINGLE', 'NONE', 'MULTI'];
@@ -14,6 +16,24 @@ window.Vaadin.Flow.gridConnector = {
 
     let detailsVisibleOnClick = true;
 
+    let prefetchMultiplier = 1;
+    let maxPrefetchRows = 0;
+    let adaptivePrefetch = false;
+    let adaptiveFactor = 1;
+    let lastScrollPosition = 0;
+    let lastScrollTime = 0;
+
+    let rangeRequestDebounce = 0;
+
+    // Maximum number of cached pages, 0 for no limit
+    let maxCachedPages = 0;
+    let rangeRequestTimeout = null;
+
+    let columnVirtualization = false;
+    // Ids of the visible columns last reported to the server
+    let lastVisibleColumns = null;
+    let visibleColumnsTimeout = null;
+
     grid.size = 0; // To avoid NaN here and there before we get proper data
 
     grid.$connector = {};
@@ -37,12 +57,6 @@ window.Vaadin.Flow.gridConnector = {
       } else {
           grid.fire('select', {item: item, userOriginated: userOriginated});
       }
-
-      if (selectionMode === 'MULTI' && arguments.length > 2) {
-          for (i = 2; i < arguments.length; i++) {
-              grid.$connector.doSelection(arguments[i], userOriginated);
-          }
-      }
     };
 
     grid.$connector.doDeselection = function(item, userOriginated) {
@@ -56,14 +70,42 @@ window.Vaadin.Flow.gridConnector = {
           grid.fire('deselect', {item: item, userOriginated: userOriginated});
         }
       }
+    };
 
-      if (selectionMode === 'MULTI' && arguments.length > 2) {
-          for (i = 2; i < arguments.length; i++) {
-              grid.$connector.doDeselection(arguments[i], userOriginated);
-          }
+    /*
+     * Calls the callback for each cached item that has one of the given keys.
+     */
+    const forEachCachedItem = function(keys, callback) {
+      for (let i = 0; i < keys.length; i++) {
+        const cacheLocation = itemToCacheLocation(keys[i]);
+        if (cacheLocation) {
+          callback(cache[cacheLocation.page][cacheLocation.index]);
+        }
       }
     };
 
+    grid.$connector.doSelectionForKeys = function(keys, userOriginated) {
+      if (selectionMode === 'NONE') {
+        return;
+      }
+      if (selectionMode === 'SINGLE') {
+        // Clear the old selection even if the new item is not cached
+        grid.selectedItems = [];
+        selectedKeys = {};
+      }
+      forEachCachedItem(keys, function(item) {
+        item.selected = true;
+        grid.$connector.doSelection(item, userOriginated);
+      });
+    };
+
+    grid.$connector.doDeselectionForKeys = function(keys, userOriginated) {
+      forEachCachedItem(keys, function(item) {
+        delete item.selected;
+        grid.$connector.doDeselection(item, userOriginated);
+      });
+    };
+
     grid.__activeItemChanged = function(newVal, oldVal) {
       if (selectionMode != 'SINGLE') {
         return;
@@ -111,11 +153,7 @@ window.Vaadin.Flow.gridConnector = {
       }
       // Determine what to fetch based on scroll position and not only
       // what grid asked for
-
-      // The buffer size could be multiplied by some constant defined by the user,
-      // if he needs to reduce the number of items sent to the Grid to improve performance
-      // or to increase it to make Grid smoother when scrolling
-      let buffer = grid._virtualEnd - grid._virtualStart;
+      let buffer = getPrefetchBuffer();
       
       let firstNeededIndex = Math.max(0, grid._virtualStart + grid._vidxOffset - buffer);
       let lastNeededIndex = Math.min(grid._virtualEnd + grid._vidxOffset + buffer, grid.size);
@@ -126,13 +164,225 @@ window.Vaadin.Flow.gridConnector = {
       let first = Math.max(0,  firstNeededPage);
       let last = Math.min(lastNeededPage, Math.floor(grid.size / grid.pageSize) + 1);
 
+      const maxPages = maxCachedPages > 0 ? Math.max(maxCachedPages, getMinCachedPages()) : 0;
+      if (maxPages > 0 && last - first + 1 > maxPages) {
+        // Keep the range around the viewport, but always include the page
+        // the grid asked for
+        let start = getViewportPage() - Math.floor((maxPages - 1) / 2);
+        start = Math.min(Math.max(start, page - maxPages + 1), page);
+        first = Math.max(first, start);
+        last = Math.min(last, first + maxPages - 1);
+      }
+
       if (lastRequestedRange[0] != first || lastRequestedRange[1] != last) {
         lastRequestedRange = [first, last];
         let count = last - first + 1;
-        grid.$server.setRequestedRange(first * grid.pageSize, count * grid.pageSize);
+        requestRange(first * grid.pageSize, count * grid.pageSize);
       }
     }
 
+    /*
+     * Sends the range after the debounce delay. A newer range replaces the
+     * pending one, so superseded ranges are never sent to the server.
+     */
+    const requestRange = function(start, length) {
+      cancelRangeRequest();
+      rangeRequestTimeout = setTimeout(function() {
+        rangeRequestTimeout = null;
+        if (!grid.isConnected) {
+          // The grid has been detached while waiting
+          return;
+        }
+        sendVisibleColumns();
+        grid.$server.setRequestedRange(start, length);
+      }, rangeRequestDebounce);
+    }
+
+    const cancelRangeRequest = function() {
+      if (rangeRequestTimeout !== null) {
+        clearTimeout(rangeRequestTimeout);
+        rangeRequestTimeout = null;
+      }
+    }
+
+    /*
+     * Gets the ids of the columns that are not hidden, in the order they are
+     * shown after any reordering by the user, and the ids of the columns that
+     * are at least partly inside the horizontally scrolled viewport. Frozen
+     * columns are always visible.
+     */
+    const getVisibleColumnIds = function() {
+      const result = {columns: [], visible: []};
+      const columnTree = grid._columnTree;
+      if (!columnTree || columnTree.length === 0) {
+        return result;
+      }
+      const tableRect = grid.$.table.getBoundingClientRect();
+      const columns = columnTree[columnTree.length - 1].filter(function(column) {
+        return column._flowId && !column.hidden;
+      }).sort(function(a, b) {
+        return (a._order || 0) - (b._order || 0);
+      });
+      for (let i = 0; i < columns.length; i++) {
+        const column = columns[i];
+        result.columns.push(column._flowId);
+        const cell = column._sizerCell || column._headerCell;
+        if (column.frozen || !cell) {
+          result.visible.push(column._flowId);
+          continue;
+        }
+        const cellRect = cell.getBoundingClientRect();
+        if (cellRect.right > tableRect.left && cellRect.left < tableRect.right) {
+          result.visible.push(column._flowId);
+        }
+      }
+      return result;
+    }
+
+    /*
+     * Reports the visible columns to the server if they have changed since
+     * they were last reported.
+     */
+    const sendVisibleColumns = function() {
+      if (visibleColumnsTimeout !== null) {
+        clearTimeout(visibleColumnsTimeout);
+        visibleColumnsTimeout = null;
+      }
+      if (!columnVirtualization) {
+        return;
+      }
+      const ids = getVisibleColumnIds();
+      const joinedIds = ids.columns.join(' ') + '|' + ids.visible.join(' ');
+      if (joinedIds !== lastVisibleColumns) {
+        lastVisibleColumns = joinedIds;
+        grid.$server.setVisibleColumns(ids.columns, ids.visible);
+      }
+    }
+
+    /*
+     * Reports the visible columns after the range request debounce delay.
+     * Unlike row ranges, a pending report isn't postponed by newer scroll
+     * events, so that columns are filled in while scrolling.
+     */
+    const scheduleVisibleColumns = function() {
+      if (!columnVirtualization || visibleColumnsTimeout !== null) {
+        return;
+      }
+      visibleColumnsTimeout = setTimeout(sendVisibleColumns, rangeRequestDebounce);
+    }
+    grid.$.table.addEventListener('scroll', scheduleVisibleColumns);
+    grid.addEventListener('iron-resize', scheduleVisibleColumns);
+    grid.addEventListener('column-resize', scheduleVisibleColumns);
+    grid.addEventListener('column-reorder', scheduleVisibleColumns);
+
+    grid.$connector.setColumnVirtualization = function(enabled) {
+      columnVirtualization = enabled;
+      lastVisibleColumns = null;
+      scheduleVisibleColumns();
+    };
+
+    grid.$connector.updateVisibleColumns = function() {
+      lastVisibleColumns = null;
+      scheduleVisibleColumns();
+    };
+
+    const getViewportPage = function() {
+      return grid._getPageForIndex(Math.floor((grid._virtualStart + grid._virtualEnd) / 2) + grid._vidxOffset);
+    }
+
+    /*
+     * Drops the cached pages outside the last requested range when there are
+     * too many of them, starting from the pages farthest from the viewport.
+     * The server has already released the rows outside the requested range.
+     */
+    const evictPages = function() {
+      const pages = Object.keys(cache);
+      if (maxCachedPages <= 0) {
+        return;
+      }
+      // Never evict below what the viewport and its prefetch buffer need, or
+      // the grid would drop rows it shows and request them again in a loop
+      const maxPages = Math.max(maxCachedPages, getMinCachedPages());
+      if (pages.length <= maxPages) {
+        return;
+      }
+      const viewportPage = getViewportPage();
+      const evictable = pages.map(Number).filter(function(page) {
+        return page < lastRequestedRange[0] || page > lastRequestedRange[1];
+      }).sort(function(a, b) {
+        return Math.abs(b - viewportPage) - Math.abs(a - viewportPage);
+      });
+      const evictCount = Math.min(evictable.length, pages.length - maxPages);
+      for (let i = 0; i < evictCount; i++) {
+        const page = evictable[i];
+        unindexPage(page);
+        delete cache[page];
+        updateGridCache(page);
+      }
+    }
+
+    grid.$connector.setMaxCachedPages = function(maxPages) {
+      maxCachedPages = maxPages;
+      evictPages();
+    };
+
+    grid.$connector.setRangeRequestDebounce = function(debounce) {
+      rangeRequestDebounce = debounce;
+    };
+
+    /*
+     * Number of rows to fetch on each side of the visible rows. With adaptive
+     * prefetch, the buffer doubles each time the grid has scrolled more than a
+     * screenful since the scroll position last changed, and halves back
+     * otherwise. The factor is only updated when the scroll position has
+     * changed, since one scroll makes the grid request several pages at the
+     * same position.
+     */
+    const getPrefetchBuffer = function() {
+      const visibleRows = grid._virtualEnd - grid._virtualStart;
+      let multiplier = prefetchMultiplier;
+      if (adaptivePrefetch) {
+        const position = grid._virtualStart + grid._vidxOffset;
+        if (position !== lastScrollPosition) {
+          const now = Date.now();
+          if (now - lastScrollTime > 1000) {
+            // Scrolling has been idle, start over from the configured buffer
+            adaptiveFactor = 1;
+          } else if (Math.abs(position - lastScrollPosition) > visibleRows) {
+            adaptiveFactor = Math.min(adaptiveFactor * 2, 8);
+          } else {
+            adaptiveFactor = Math.max(adaptiveFactor / 2, 1);
+          }
+          lastScrollPosition = position;
+          lastScrollTime = now;
+        }
+        multiplier *= adaptiveFactor;
+      }
+      return limitPrefetchBuffer(Math.ceil(visibleRows * multiplier));
+    }
+
+    const limitPrefetchBuffer = function(buffer) {
+      return maxPrefetchRows > 0 ? Math.min(buffer, maxPrefetchRows) : buffer;
+    }
+
+    /*
+     * Number of pages spanned by the visible rows and the current prefetch
+     * buffer on both sides of them, plus one page for unaligned ranges.
+     */
+    const getMinCachedPages = function() {
+      const visibleRows = grid._virtualEnd - grid._virtualStart;
+      const factor = adaptivePrefetch ? prefetchMultiplier * adaptiveFactor : prefetchMultiplier;
+      const buffer = limitPrefetchBuffer(Math.ceil(visibleRows * factor));
+      return Math.ceil((visibleRows + 2 * buffer) / grid.pageSize) + 1;
+    }
+
+    grid.$connector.setPrefetch = function(multiplier, maxRows, adaptive) {
+      prefetchMultiplier = multiplier;
+      maxPrefetchRows = maxRows;
+      adaptivePrefetch = adaptive;
+      adaptiveFactor = 1;
+    };
+
     const sorterChangeListener = function() {
       grid.$server.sortersChanged(grid._sorters.map(function(sorter) {
         return {
@@ -207,7 +457,9 @@ window.Vaadin.Flow.gridConnector = {
       for (let i = 0; i < updatedPageCount; i++) {
         let page = firstPage + i;
         let slice = items.slice(i * grid.pageSize, (i + 1) * grid.pageSize);
+        unindexPage(page);
         cache[page] = slice;
+        indexPage(page);
         for(let j = 0; j < slice.length; j++) {
           let item = slice[j]
           if (item.selected && !isSelectedOnGrid(item)) {
@@ -218,17 +470,60 @@ window.Vaadin.Flow.gridConnector = {
         }
         updateGridCache(page);
       }
+      evictPages();
     };
 
-    const itemToCacheLocation = function(itemKey) {
-      for (let page in cache) {
-        for (let index in cache[page]) {
-          if (cache[page][index].key === itemKey) {
-            return {page: page, index: index};
+    const indexPage = function(page) {
+      const items = cache[page];
+      for (let index = 0; index < items.length; index++) {
+        if (items[index]) {
+          keyToCacheLocation[items[index].key] = {page: page, index: index};
+        }
+      }
+    }
+
+    const unindexPage = function(page) {
+      const items = cache[page];
+      if (!items) {
+        return;
+      }
+      for (let index = 0; index < items.length; index++) {
+        const item = items[index];
+        if (item) {
+          const cacheLocation = keyToCacheLocation[item.key];
+          // The key may already point to a newer location in another page
+          if (cacheLocation && cacheLocation.page == page && cacheLocation.index === index) {
+            delete keyToCacheLocation[item.key];
+          }
+        }
+      }
+    }
+
+    /*
+     * Rebuilds the row objects from data sent column by column: an array of
+     * values per property, where null means that the row doesn't have the
+     * property.
+     */
+    grid.$connector.setColumns = function(index, data) {
+      const items = new Array(data.length);
+      for (let i = 0; i < data.length; i++) {
+        items[i] = {};
+      }
+      const properties = Object.keys(data.columns);
+      for (let p = 0; p < properties.length; p++) {
+        const property = properties[p];
+        const values = data.columns[property];
+        for (let i = 0; i < values.length; i++) {
+          if (values[i] !== null) {
+            items[i][property] = values[i];
           }
         }
       }
-      return null;
+      grid.$connector.set(index, items);
+    };
+
+    const itemToCacheLocation = function(itemKey) {
+      return keyToCacheLocation.hasOwnProperty(itemKey) ? keyToCacheLocation[itemKey] : null;
     }
 
     grid.$connector.updateData = function(items) {
@@ -263,12 +558,17 @@ window.Vaadin.Flow.gridConnector = {
       for (let i = 0; i < updatedPageCount; i++) {
         let page = firstPage + i;
         let items = cache[page];
+        if (!items) {
+          // The page may have been evicted already
+          continue;
+        }
         for (let j = 0; j < items.length; j++) {
           let item = items[j];
           if (selectedKeys[item.key]) {
             grid.$connector.doDeselection(item);
           }
         }
+        unindexPage(page);
         delete cache[page];
         updateGridCache(page);
       }
@@ -286,8 +586,11 @@ window.Vaadin.Flow.gridConnector = {
     }
 
     grid.$connector.reset = function() {
+      // A range requested before the reset is not needed anymore
+      cancelRangeRequest();
       grid.size = 0;
       deleteObjectContents(cache);
+      deleteObjectContents(keyToCacheLocation);
       deleteObjectContents(grid._cache.items);
       lastRequestedRange = [0, 0];
       grid._assignModels();
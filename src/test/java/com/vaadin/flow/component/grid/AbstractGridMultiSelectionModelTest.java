@@ -15,14 +15,22 @@
  */
 package com.vaadin.flow.component.grid;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 import com.vaadin.flow.component.grid.Grid.SelectionMode;
 
+import elemental.json.Json;
+import elemental.json.JsonObject;
+
 public class AbstractGridMultiSelectionModelTest {
 
     @Test
@@ -90,4 +98,44 @@ public class AbstractGridMultiSelectionModelTest {
         grid.getSelectionModel().deselectFromClient("foo");
         Assert.assertEquals(0, deselected.size());
     }
+
+    @Test
+    public void generateData_largeSelection_selectionNotCopied() {
+        Grid<Integer> grid = new Grid<>();
+        List<Integer> items = IntStream.range(0, 20000).boxed()
+                .collect(Collectors.toList());
+        grid.setItems(items);
+        AbstractGridMultiSelectionModel<Integer> model = (AbstractGridMultiSelectionModel<Integer>) grid
+                .setSelectionMode(SelectionMode.MULTI);
+        model.updateSelection(new HashSet<>(items), Collections.emptySet());
+
+        AbstractGridMultiSelectionModel<Integer> spy = Mockito.spy(model);
+
+        // 100 scroll passes over a viewport of 150 rows
+        for (int pass = 0; pass < 100; pass++) {
+            int start = pass * 150;
+            for (int i = start; i < start + 150; i++) {
+                JsonObject json = Json.createObject();
+                spy.generateData(i, json);
+                Assert.assertTrue(json.getBoolean("selected"));
+            }
+        }
+        Mockito.verify(spy, Mockito.never()).getSelectedItems();
+    }
+
+    @Test
+    public void getSelectedItems_selectionNotChanged_sameSnapshotReturned() {
+        Grid<String> grid = new Grid<>();
+        grid.setSelectionMode(SelectionMode.MULTI);
+        grid.setItems("foo", "bar");
+        grid.select("foo");
+
+        Set<String> snapshot = grid.getSelectedItems();
+        Assert.assertSame(snapshot, grid.getSelectedItems());
+
+        grid.select("bar");
+        Assert.assertEquals(Collections.singleton("foo"), snapshot);
+        Assert.assertNotSame(snapshot, grid.getSelectedItems());
+        Assert.assertEquals(2, grid.getSelectedItems().size());
+    }
 }
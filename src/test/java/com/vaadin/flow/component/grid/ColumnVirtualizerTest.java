@@ -0,0 +1,177 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.grid.Grid.Column;
+import com.vaadin.flow.data.provider.DataGenerator;
+import com.vaadin.flow.data.provider.DataProvider;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+
+public class ColumnVirtualizerTest {
+
+    private ColumnVirtualizer<String> virtualizer;
+    private List<Column<String>> columns;
+
+    @Before
+    public void setUp() {
+        DataProvider<String, ?> dataProvider = DataProvider
+                .ofCollection(Arrays.asList("foo", "bar", "baz"));
+        virtualizer = new ColumnVirtualizer<>(() -> dataProvider);
+        virtualizer.setBuffer(1);
+        Grid<String> grid = new Grid<>();
+        columns = IntStream.range(0, 10)
+                .mapToObj(i -> grid.addColumn(item -> item))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void notReported_allColumnsRendered() {
+        columns.forEach(column -> Assert.assertTrue(
+                virtualizer.isRendered(column)));
+    }
+
+    @Test
+    public void visibleColumnsReported_visibleAndBufferColumnsRendered() {
+        List<Column<?>> added = virtualizer.setVisibleColumns(columns,
+                ids(4, 5));
+
+        Assert.assertEquals(Collections.emptyList(), added);
+        assertRendered(3, 4, 5, 6);
+    }
+
+    @Test
+    public void separateVisibleColumns_onlyBuffersAroundEachRendered() {
+        virtualizer.setVisibleColumns(columns, ids(0, 8));
+
+        assertRendered(0, 1, 7, 8, 9);
+    }
+
+    @Test
+    public void scrolledSideways_newlyRenderedColumnsReturned() {
+        virtualizer.setVisibleColumns(columns, ids(4, 5));
+        List<Column<?>> added = virtualizer.setVisibleColumns(columns,
+                ids(6, 7));
+
+        Assert.assertEquals(Arrays.asList(columns.get(7), columns.get(8)),
+                added);
+        assertRendered(5, 6, 7, 8);
+    }
+
+    @Test
+    public void reorderedColumnsWithoutHidden_bufferCountedInGivenOrder() {
+        // Column 3 is hidden and column 9 is moved between 1 and 2
+        List<Column<String>> shown = new ArrayList<>(columns);
+        shown.remove(3);
+        shown.remove(columns.get(9));
+        shown.add(2, columns.get(9));
+
+        virtualizer.setVisibleColumns(shown, ids(2));
+
+        assertRendered(2, 4, 9);
+    }
+
+    @Test
+    public void flowIdSetOnlyWithColumnVirtualization() {
+        Grid<String> grid = new Grid<>();
+        Column<String> column = grid.addColumn(item -> item);
+        Assert.assertFalse(column.getElement().hasProperty("_flowId"));
+
+        grid.setColumnVirtualization(true);
+        Column<String> added = grid.addColumn(item -> item);
+        Assert.assertEquals(column.getInternalId(),
+                column.getElement().getProperty("_flowId"));
+        Assert.assertEquals(added.getInternalId(),
+                added.getElement().getProperty("_flowId"));
+
+        grid.setColumnVirtualization(false);
+        Assert.assertFalse(column.getElement().hasProperty("_flowId"));
+    }
+
+    @Test
+    public void addedColumn_renderedUntilReportedAgain() {
+        virtualizer.setVisibleColumns(columns, ids(0));
+        virtualizer.addRenderedColumn(columns.get(9));
+
+        assertRendered(0, 1, 9);
+    }
+
+    @Test
+    public void wrappedGenerator_generatesOnlyForRenderedColumns() {
+        DataGenerator<String> first = virtualizer.wrap(columns.get(0),
+                (item, json) -> json.put("first", item));
+        DataGenerator<String> last = virtualizer.wrap(columns.get(9),
+                (item, json) -> json.put("last", item));
+        virtualizer.setVisibleColumns(columns, ids(0));
+
+        JsonObject json = Json.createObject();
+        first.generateData("foo", json);
+        last.generateData("foo", json);
+
+        Assert.assertEquals("foo", json.getString("first"));
+        Assert.assertFalse(json.hasKey("last"));
+    }
+
+    @Test
+    public void activeItems_trackedUntilDestroyed() {
+        virtualizer.generateData("foo", Json.createObject());
+        virtualizer.generateData("bar", Json.createObject());
+        virtualizer.generateData("foo", Json.createObject());
+        Assert.assertEquals(Arrays.asList("foo", "bar"),
+                virtualizer.getActiveItems());
+
+        virtualizer.destroyData("foo");
+        Assert.assertEquals(Arrays.asList("bar"),
+                virtualizer.getActiveItems());
+
+        virtualizer.destroyAllData();
+        Assert.assertEquals(Collections.emptyList(),
+                virtualizer.getActiveItems());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeBuffer_throws() {
+        virtualizer.setBuffer(-1);
+    }
+
+    private HashSet<String> ids(int... indexes) {
+        return Arrays.stream(indexes)
+                .mapToObj(index -> columns.get(index).getInternalId())
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private void assertRendered(int... indexes) {
+        List<Integer> expected = Arrays.stream(indexes).boxed()
+                .collect(Collectors.toList());
+        List<Integer> rendered = IntStream.range(0, columns.size())
+                .filter(i -> virtualizer.isRendered(columns.get(i))).boxed()
+                .collect(Collectors.toList());
+        Assert.assertEquals(expected, rendered);
+    }
+}
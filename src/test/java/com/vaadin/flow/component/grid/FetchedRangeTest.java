@@ -0,0 +1,70 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.function.SerializableComparator;
+
+public class FetchedRangeTest {
+
+    private final DataProvider<String, ?> dataProvider = DataProvider
+            .ofItems("a", "b", "c", "d", "e");
+    private final List<QuerySortOrder> sorting = QuerySortOrder.asc("name")
+            .build();
+    private final SerializableComparator<String> comparator = String::compareTo;
+
+    private final FetchedRange<String> range = new FetchedRange<>(10, 5,
+            Arrays.asList("a", "b", "c"), dataProvider, sorting, comparator);
+
+    @Test
+    public void covers_rowsWithinRequestedRange() {
+        Assert.assertTrue(range.covers(10, 5, dataProvider,
+                QuerySortOrder.asc("name").build(), comparator));
+        Assert.assertTrue(
+                range.covers(12, 2, dataProvider, sorting, comparator));
+        Assert.assertFalse(
+                range.covers(9, 2, dataProvider, sorting, comparator));
+        Assert.assertFalse(
+                range.covers(12, 4, dataProvider, sorting, comparator));
+    }
+
+    @Test
+    public void covers_queryChanged_notCovered() {
+        Assert.assertFalse(range.covers(10, 5, DataProvider.ofItems("a"),
+                sorting, comparator));
+        Assert.assertFalse(range.covers(10, 5, dataProvider,
+                Collections.emptyList(), comparator));
+        Assert.assertFalse(
+                range.covers(10, 5, dataProvider, sorting, null));
+    }
+
+    @Test
+    public void getItems_fewerItemsThanRequested_itemsUntilEnd() {
+        Assert.assertEquals(Arrays.asList("b", "c"), range.getItems(11, 3)
+                .collect(Collectors.toList()));
+        Assert.assertEquals(Collections.emptyList(),
+                range.getItems(13, 2).collect(Collectors.toList()));
+    }
+}
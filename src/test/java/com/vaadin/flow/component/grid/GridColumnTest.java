@@ -15,6 +15,10 @@
  */
 package com.vaadin.flow.component.grid;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -22,9 +26,14 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import com.vaadin.flow.component.grid.Grid.Column;
+import com.vaadin.flow.data.provider.DataGenerator;
 import com.vaadin.flow.data.provider.SortDirection;
 import com.vaadin.flow.function.SerializableComparator;
 
+import elemental.json.Json;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+
 public class GridColumnTest {
 
     Grid<String> grid;
@@ -128,6 +137,41 @@ public class GridColumnTest {
         grid.removeColumn(firstColumn);
     }
 
+    @Test
+    public void addNumberAndBooleanColumns_valuesSentAsJsonTypes() {
+        Grid<Person> grid = new Grid<>();
+        Column<Person> textColumn = grid.addColumn(Person::getBorn);
+        Column<Person> numberColumn = grid.addNumberColumn(Person::getBorn);
+        Column<Person> booleanColumn = grid
+                .addBooleanColumn(person -> person.getBorn() > 1990);
+        Column<Person> nullColumn = grid.addNumberColumn(person -> null);
+
+        JsonObject json = Json.createObject();
+        grid.getDataGenerator().generateData(new Person("Foo", 1993), json);
+
+        Assert.assertEquals("1993",
+                json.getString(textColumn.getInternalId()));
+        Assert.assertEquals(JsonType.NUMBER,
+                json.get(numberColumn.getInternalId()).getType());
+        Assert.assertEquals(1993,
+                json.getNumber(numberColumn.getInternalId()), 0);
+        Assert.assertTrue(json.getBoolean(booleanColumn.getInternalId()));
+        Assert.assertEquals(JsonType.NULL,
+                json.get(nullColumn.getInternalId()).getType());
+    }
+
+    @Test
+    public void addNumberColumn_sortsByNumberValue() {
+        Grid<Person> grid = new Grid<>();
+        Column<Person> column = grid.addNumberColumn(Person::getBorn);
+        Person a = new Person("a", 900);
+        Person b = new Person("b", 1000);
+
+        // Compared as Strings "900" would be after "1000"
+        Assert.assertTrue(
+                column.getComparator(SortDirection.ASCENDING).compare(a, b) < 0);
+    }
+
     @Test
     public void addColumn_defaultComparator() {
         Grid<Person> grid = new Grid<>();
@@ -169,6 +213,56 @@ public class GridColumnTest {
         thrown.expectMessage(message);
     }
 
+    @Test
+    public void getColumns_sameListUntilColumnsChange() {
+        List<Column<String>> columns = grid.getColumns();
+        Assert.assertSame(columns, grid.getColumns());
+
+        Column<String> fourthColumn = grid.addColumn(str -> str);
+        Assert.assertEquals(Arrays.asList(firstColumn, secondColumn,
+                thirdColumn, fourthColumn), grid.getColumns());
+
+        grid.removeColumn(secondColumn);
+        Assert.assertEquals(
+                Arrays.asList(firstColumn, thirdColumn, fourthColumn),
+                grid.getColumns());
+
+        grid.prependHeaderRow().join(thirdColumn, fourthColumn);
+        columns = grid.getColumns();
+        Assert.assertEquals(
+                Arrays.asList(firstColumn, thirdColumn, fourthColumn),
+                columns);
+        Assert.assertSame(columns, grid.getColumns());
+    }
+
+    @Test
+    public void configureColumns_dataResetOnceAfterBatch() {
+        AtomicInteger resets = new AtomicInteger();
+        grid.getDataGenerator().addDataGenerator(new DataGenerator<String>() {
+            @Override
+            public void generateData(String item, JsonObject jsonObject) {
+            }
+
+            @Override
+            public void destroyAllData() {
+                resets.incrementAndGet();
+            }
+        });
+
+        grid.configureColumns(g -> {
+            g.addColumn(str -> str);
+            g.configureColumns(nested -> nested.addColumn(str -> str));
+            g.removeColumn(firstColumn);
+            Assert.assertEquals(0, resets.get());
+        });
+
+        Assert.assertEquals(1, resets.get());
+        Assert.assertEquals(4, grid.getColumns().size());
+
+        grid.addColumn(str -> str);
+        Assert.assertEquals(2, resets.get());
+    }
+
     private void expectIllegalArgumentException(String message) {
         thrown.expect(IllegalArgumentException.class);
         thrown.expectMessage(message);
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+public class GridColumnarDataTest {
+
+    @Test
+    public void toColumnarData_valuesGroupedByProperty() {
+        JsonObject first = Json.createObject();
+        first.put("key", "1");
+        first.put("col0", "foo");
+        first.put("selected", true);
+        JsonObject second = Json.createObject();
+        second.put("key", "2");
+        second.put("col0", "bar");
+        JsonObject third = Json.createObject();
+        third.put("key", "3");
+        third.put("col0", "baz");
+        third.put("detailsOpened", true);
+
+        JsonObject data = Grid.toColumnarData(
+                Arrays.<JsonValue> asList(first, second, third));
+
+        Assert.assertEquals(3, data.getNumber("length"), 0);
+        JsonObject columns = data.getObject("columns");
+        Assert.assertEquals("[\"1\",\"2\",\"3\"]",
+                columns.getArray("key").toJson());
+        Assert.assertEquals("[\"foo\",\"bar\",\"baz\"]",
+                columns.getArray("col0").toJson());
+        // Trailing rows without the property are left out
+        Assert.assertEquals("[true]", columns.getArray("selected").toJson());
+
+        JsonArray detailsOpened = columns.getArray("detailsOpened");
+        Assert.assertEquals(3, detailsOpened.length());
+        Assert.assertEquals(JsonType.NULL, detailsOpened.get(0).getType());
+        Assert.assertEquals(JsonType.NULL, detailsOpened.get(1).getType());
+        Assert.assertTrue(detailsOpened.getBoolean(2));
+    }
+
+    @Test
+    public void toColumnarData_noItems_emptyColumns() {
+        JsonObject data = Grid.toColumnarData(Collections.emptyList());
+
+        Assert.assertEquals(0, data.getNumber("length"), 0);
+        Assert.assertEquals(0, data.getObject("columns").keys().length);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.internal.UIInternals.JavaScriptInvocation;
+
+/**
+ * Helpers for checking the calls made to the grid connector on the client.
+ *
+ * @author Vaadin Ltd.
+ */
+final class GridConnectorCalls {
+
+    private GridConnectorCalls() {
+    }
+
+    /**
+     * Runs the tasks pending before the response to the client, and dumps the
+     * JavaScript invocations of the UI that would be sent to the client.
+     *
+     * @param ui
+     *            the UI
+     * @return the pending invocations, which are dropped from the UI
+     */
+    static List<JavaScriptInvocation> dumpInvocations(UI ui) {
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        return ui.getInternals().dumpPendingJavaScriptInvocations();
+    }
+
+    /**
+     * Gets the arguments of the calls to the given connector function among
+     * the invocations.
+     *
+     * @param function
+     *            the name of the connector function
+     * @param invocations
+     *            the invocations to search in
+     * @return the arguments of each call, without the element
+     */
+    static List<List<Serializable>> getConnectorCalls(String function,
+            List<JavaScriptInvocation> invocations) {
+        return invocations.stream()
+                .filter(invocation -> invocation.getExpression()
+                        .startsWith("$0.$connector." + function + "("))
+                .map(invocation -> invocation.getParameters().subList(1,
+                        invocation.getParameters().size()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the arguments of the pending calls to the given connector
+     * function, and drops all pending calls of the UI.
+     *
+     * @param ui
+     *            the UI
+     * @param function
+     *            the name of the connector function
+     * @return the arguments of each call, without the element
+     */
+    static List<List<Serializable>> getConnectorCalls(UI ui,
+            String function) {
+        return getConnectorCalls(function, dumpInvocations(ui));
+    }
+}
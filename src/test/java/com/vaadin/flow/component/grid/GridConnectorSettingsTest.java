@@ -0,0 +1,136 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+
+public class GridConnectorSettingsTest {
+
+    private UI ui;
+    private Grid<String> grid;
+
+    @Before
+    public void setUp() {
+        ui = new UI();
+        grid = new Grid<>();
+        ui.add(grid);
+        // Drop the calls made when the connector is initialized
+        getConnectorCalls("");
+    }
+
+    @Test
+    public void setPrefetchMultiplier_sentToClient() {
+        grid.setPrefetchMultiplier(2.5);
+
+        Assert.assertEquals(2.5, grid.getPrefetchMultiplier(), 0);
+        Assert.assertEquals(Arrays.asList(Arrays.asList(2.5, 0, false)),
+                getConnectorCalls("setPrefetch"));
+    }
+
+    @Test
+    public void setMaxPrefetchRows_sentToClient() {
+        grid.setMaxPrefetchRows(200);
+
+        Assert.assertEquals(200, grid.getMaxPrefetchRows());
+        Assert.assertEquals(Arrays.asList(Arrays.asList(1.0, 200, false)),
+                getConnectorCalls("setPrefetch"));
+    }
+
+    @Test
+    public void setAdaptivePrefetch_sentToClient() {
+        grid.setAdaptivePrefetch(true);
+
+        Assert.assertTrue(grid.isAdaptivePrefetch());
+        Assert.assertEquals(Arrays.asList(Arrays.asList(1.0, 0, true)),
+                getConnectorCalls("setPrefetch"));
+    }
+
+    @Test
+    public void prefetchSettings_sentTogetherAndAgainOnReattach() {
+        grid.setPrefetchMultiplier(2.5);
+        grid.setMaxPrefetchRows(100);
+        grid.setAdaptivePrefetch(true);
+        Assert.assertEquals(
+                Arrays.asList(Arrays.asList(2.5, 0, false),
+                        Arrays.asList(2.5, 100, false),
+                        Arrays.asList(2.5, 100, true)),
+                getConnectorCalls("setPrefetch"));
+
+        ui.remove(grid);
+        ui.add(grid);
+
+        Assert.assertEquals(Arrays.asList(Arrays.asList(2.5, 100, true)),
+                getConnectorCalls("setPrefetch"));
+    }
+
+    @Test
+    public void setRangeRequestDebounce_sentToClient() {
+        grid.setRangeRequestDebounce(150);
+
+        Assert.assertEquals(150, grid.getRangeRequestDebounce());
+        Assert.assertEquals(Arrays.asList(Arrays.asList(150)),
+                getConnectorCalls("setRangeRequestDebounce"));
+    }
+
+    @Test
+    public void setMaxCachedPages_sentToClient() {
+        grid.setMaxCachedPages(20);
+
+        Assert.assertEquals(20, grid.getMaxCachedPages());
+        Assert.assertEquals(Arrays.asList(Arrays.asList(20)),
+                getConnectorCalls("setMaxCachedPages"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setPrefetchMultiplier_negative_throws() {
+        grid.setPrefetchMultiplier(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxPrefetchRows_negative_throws() {
+        grid.setMaxPrefetchRows(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setRangeRequestDebounce_negative_throws() {
+        grid.setRangeRequestDebounce(-1);
+    }
+
+    @Test
+    public void setMaxCachedPages_negative_throwsAndNotSent() {
+        try {
+            grid.setMaxCachedPages(-1);
+            Assert.fail("A negative value should not be accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        Assert.assertEquals(0, grid.getMaxCachedPages());
+        Assert.assertEquals(0, getConnectorCalls("setMaxCachedPages").size());
+    }
+
+    private List<List<Serializable>> getConnectorCalls(String function) {
+        return GridConnectorCalls.getConnectorCalls(ui, function);
+    }
+}
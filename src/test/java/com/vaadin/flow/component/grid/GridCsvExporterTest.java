@@ -0,0 +1,150 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.ListDataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.function.SerializablePredicate;
+
+public class GridCsvExporterTest {
+
+    private Grid<Person> grid;
+    private GridCsvExporter<Person> exporter;
+
+    @Before
+    public void setUp() {
+        grid = new Grid<>();
+        grid.setItems(new Person("Smith, John", 1990),
+                new Person("\"Jane\"", 1985));
+        grid.addColumn(Person::getName).setKey("name");
+        grid.addNumberColumn(Person::getBorn).setKey("born");
+        exporter = new GridCsvExporter<>(grid);
+    }
+
+    @Test
+    public void write_visibleColumnsWrittenAndValuesQuoted()
+            throws IOException {
+        grid.addColumn(person -> "hidden").setKey("hidden").setVisible(false);
+
+        Assert.assertEquals("name,born\r\n" + "\"Smith, John\",1990\r\n"
+                + "\"\"\"Jane\"\"\",1985\r\n", write());
+    }
+
+    @Test
+    public void write_currentSortOrderUsed() throws IOException {
+        exporter.setHeaderRowIncluded(false);
+        exporter.setSeparator(';');
+        grid.getDataCommunicator().setInMemorySorting(
+                (a, b) -> Integer.compare(a.getBorn(), b.getBorn()));
+
+        Assert.assertEquals(
+                "\"Jane\";1985\r\n" + "Smith, John;1990\r\n", write());
+    }
+
+    @Test
+    public void write_backEndDataProvider_fetchedInPages()
+            throws IOException {
+        List<Person> persons = IntStream.range(0, 25)
+                .mapToObj(i -> new Person("p" + i, i))
+                .collect(Collectors.toList());
+        AtomicInteger fetches = new AtomicInteger();
+        grid.setDataProvider(DataProvider.fromCallbacks(query -> {
+            fetches.incrementAndGet();
+            return persons.stream().skip(query.getOffset())
+                    .limit(query.getLimit());
+        }, query -> persons.size()));
+        exporter.setHeaderRowIncluded(false);
+        exporter.setPageSize(10);
+
+        String[] lines = write().split("\r\n");
+
+        Assert.assertEquals(25, lines.length);
+        Assert.assertEquals("p24,24", lines[24]);
+        Assert.assertEquals(3, fetches.get());
+    }
+
+    @Test
+    public void write_inMemoryDataProvider_fetchedOnce()
+            throws IOException {
+        List<Person> persons = IntStream.range(0, 25)
+                .mapToObj(i -> new Person("p" + i, i))
+                .collect(Collectors.toList());
+        AtomicInteger fetches = new AtomicInteger();
+        grid.setDataProvider(new ListDataProvider<Person>(persons) {
+            @Override
+            public Stream<Person> fetch(
+                    Query<Person, SerializablePredicate<Person>> query) {
+                fetches.incrementAndGet();
+                return super.fetch(query);
+            }
+        });
+        exporter.setHeaderRowIncluded(false);
+        exporter.setPageSize(10);
+
+        String[] lines = write().split("\r\n");
+
+        Assert.assertEquals(25, lines.length);
+        Assert.assertEquals("p24,24", lines[24]);
+        Assert.assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void headerText_writtenInsteadOfKey() throws IOException {
+        grid.getColumnByKey("name").setHeader("Name");
+
+        Assert.assertEquals("Name,born",
+                write().substring(0, write().indexOf("\r\n")));
+    }
+
+    @Test
+    public void formulaLikeText_prefixed() throws IOException {
+        grid.setItems(new Person("=1+2", -5), new Person("@SUM(A1)", 1),
+                new Person("-2+3", 2), new Person("+a", 3));
+        exporter.setHeaderRowIncluded(false);
+
+        Assert.assertEquals("'=1+2,-5\r\n" + "'@SUM(A1),1\r\n"
+                + "'-2+3,2\r\n" + "'+a,3\r\n", write());
+    }
+
+    @Test
+    public void columnWithoutValueProvider_notWritten() throws IOException {
+        grid.getColumnByKey("born").setValueProvider(null);
+
+        Assert.assertEquals(Arrays.asList("name", "\"Smith, John\"",
+                "\"\"\"Jane\"\"\""), Arrays.asList(write().split("\r\n")));
+    }
+
+    private String write() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exporter.write(outputStream);
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.server.communication.rpc.PublishedServerEventHandlerRpcHandler;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+
+import static com.vaadin.flow.component.grid.GridConnectorCalls.dumpInvocations;
+import static com.vaadin.flow.component.grid.GridConnectorCalls.getConnectorCalls;
+
+public class GridDataFetchExecutorTest {
+
+    /*
+     * Runs the commands right away instead of locking the session, or fails
+     * like a closed UI.
+     */
+    private static class TestUI extends UI {
+        private boolean closed;
+
+        @Override
+        public Future<Void> access(Command command) {
+            if (closed) {
+                throw new UIDetachedException();
+            }
+            command.execute();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private final List<String> items = IntStream.range(0, 100)
+            .mapToObj(String::valueOf).collect(Collectors.toList());
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private RuntimeException fetchError;
+
+    private TestUI ui;
+    private Grid<String> grid;
+
+    @Before
+    public void setUp() {
+        ui = new TestUI();
+        grid = new Grid<>();
+        grid.setDataProvider(DataProvider.fromCallbacks(query -> {
+            fetches.incrementAndGet();
+            if (fetchError != null) {
+                throw fetchError;
+            }
+            return items.stream().skip(query.getOffset())
+                    .limit(query.getLimit());
+        }, query -> items.size()));
+        grid.setDataFetchExecutor(tasks::add);
+        ui.add(grid);
+        dumpInvocations(ui);
+        fetches.set(0);
+    }
+
+    @Test
+    public void requestRange_fetchedInBackgroundAndSent() {
+        requestRangeFromClient(0, 10);
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals(0, fetches.get());
+        Assert.assertTrue(getConnectorCalls(ui, "set").isEmpty());
+
+        tasks.get(0).run();
+
+        List<List<Serializable>> calls = getConnectorCalls(ui, "set");
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals(0, ((Number) calls.get(0).get(0)).intValue());
+        JsonArray rows = (JsonArray) calls.get(0).get(1);
+        Assert.assertEquals(10, rows.length());
+        Assert.assertEquals("0", grid.getDataCommunicator().getKeyMapper()
+                .get(rows.getObject(0).getString("key")));
+        Assert.assertEquals("The rows should not be fetched again", 1,
+                fetches.get());
+    }
+
+    @Test
+    public void newerRangeRequested_staleRangeDropped() {
+        requestRangeFromClient(0, 10);
+        requestRangeFromClient(50, 10);
+        Assert.assertEquals(2, tasks.size());
+
+        tasks.get(0).run();
+        Assert.assertTrue(getConnectorCalls(ui, "set").isEmpty());
+
+        tasks.get(1).run();
+        List<List<Serializable>> calls = getConnectorCalls(ui, "set");
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals(50, ((Number) calls.get(0).get(0)).intValue());
+    }
+
+    @Test
+    public void gridDetachedWhileFetching_rowsNotSent() {
+        requestRangeFromClient(0, 10);
+        ui.remove(grid);
+
+        tasks.get(0).run();
+
+        Assert.assertTrue(getConnectorCalls(ui, "set").isEmpty());
+        Assert.assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void uiClosedWhileFetching_rowsDropped() {
+        requestRangeFromClient(0, 10);
+        ui.closed = true;
+
+        // Doesn't throw
+        tasks.get(0).run();
+
+        Assert.assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void fetchFails_errorRethrownInUiWithoutFetchingAgain() {
+        fetchError = new IllegalStateException("Back end unavailable");
+        requestRangeFromClient(0, 10);
+
+        try {
+            tasks.get(0).run();
+            Assert.fail("The error should be rethrown in the UI");
+        } catch (IllegalStateException e) {
+            Assert.assertSame(fetchError, e);
+        }
+        Assert.assertEquals(1, fetches.get());
+        Assert.assertTrue(getConnectorCalls(ui, "set").isEmpty());
+    }
+
+    @Test
+    public void staleFetchFails_errorNotRethrown() {
+        fetchError = new IllegalStateException("Back end unavailable");
+        requestRangeFromClient(0, 10);
+        requestRangeFromClient(50, 10);
+
+        // Only the latest range reports its error
+        tasks.get(0).run();
+
+        Assert.assertEquals(1, fetches.get());
+    }
+
+    /*
+     * Requests the rows like the client does.
+     */
+    private void requestRangeFromClient(int start, int length) {
+        JsonArray arguments = Json.createArray();
+        arguments.set(0, start);
+        arguments.set(1, length);
+        PublishedServerEventHandlerRpcHandler.invokeMethod(grid, Grid.class,
+                "setRequestedRange", arguments);
+    }
+}
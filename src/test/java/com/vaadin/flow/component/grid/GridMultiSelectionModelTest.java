@@ -24,15 +24,21 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.grid.Grid.SelectionMode;
+import com.vaadin.flow.component.grid.GridMultiSelectionModel.SelectionStorage;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.ListDataProvider;
 import com.vaadin.flow.data.selection.MultiSelectionEvent;
 import com.vaadin.flow.data.selection.MultiSelectionListener;
+import com.vaadin.flow.dom.Element;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -509,4 +515,282 @@ public class GridMultiSelectionModelTest {
 
         Mockito.verify(model, Mockito.times(1)).getSelectedItems();
     }
+
+    @Test
+    public void identifierStorage_selectionResolvedById() {
+        grid.setDataProvider(new ListDataProvider<Person>(
+                Arrays.asList(PERSON_A, PERSON_B, PERSON_C)) {
+            @Override
+            public Object getId(Person item) {
+                return item.getBorn();
+            }
+        });
+        selectionModel.setSelectionStorage(SelectionStorage.IDENTIFIERS);
+        assertEquals(SelectionStorage.IDENTIFIERS,
+                selectionModel.getSelectionStorage());
+
+        selectionModel.selectItems(PERSON_C, PERSON_A);
+        assertTrue(selectionModel.isSelected(new Person("copy of a", 1)));
+        assertFalse(selectionModel.isSelected(PERSON_B));
+
+        // Items are fetched from the data provider, in its order
+        assertEquals(Arrays.asList(PERSON_A, PERSON_C),
+                new ArrayList<>(selectionModel.getSelectedItems()));
+        assertEquals(Arrays.asList(PERSON_A, PERSON_C),
+                currentSelectionCapture.get());
+
+        selectionModel.deselect(new Person("copy of c", 3));
+        assertFalse(selectionModel.isSelected(PERSON_C));
+        assertEquals(Collections.singletonList(PERSON_A),
+                currentSelectionCapture.get());
+        assertEquals(Arrays.asList(PERSON_A, PERSON_C),
+                oldSelectionCapture.get());
+    }
+
+    @Test
+    public void identifierStorage_itemRemovedFromDataProvider_notCounted() {
+        List<Person> items = new ArrayList<>(
+                Arrays.asList(PERSON_A, PERSON_B, PERSON_C));
+        ListDataProvider<Person> dataProvider = new ListDataProvider<Person>(
+                items) {
+            @Override
+            public Object getId(Person item) {
+                return item.getBorn();
+            }
+        };
+        grid.setDataProvider(dataProvider);
+        selectionModel.setSelectionStorage(SelectionStorage.IDENTIFIERS);
+        selectionModel.selectItems(PERSON_A, PERSON_C);
+
+        items.remove(PERSON_C);
+        dataProvider.refreshAll();
+
+        Set<Person> selected = selectionModel.getSelectedItems();
+        assertEquals(1, selected.size());
+        assertEquals(Collections.singletonList(PERSON_A),
+                new ArrayList<>(selected));
+        assertFalse(selected.isEmpty());
+
+        items.remove(PERSON_A);
+        dataProvider.refreshAll();
+
+        selected = selectionModel.getSelectedItems();
+        assertEquals(0, selected.size());
+        assertTrue(selected.isEmpty());
+    }
+
+    @Test
+    public void changeSelectionStorage_selectionKept() {
+        selectionModel.selectItems(PERSON_C, PERSON_A);
+
+        selectionModel.setSelectionStorage(SelectionStorage.IDENTIFIERS);
+        assertTrue(selectionModel.isSelected(PERSON_A));
+        assertTrue(selectionModel.isSelected(PERSON_C));
+        assertEquals(Arrays.asList(PERSON_A, PERSON_C),
+                new ArrayList<>(selectionModel.getSelectedItems()));
+
+        selectionModel.setSelectionStorage(SelectionStorage.ITEMS);
+        assertEquals(Arrays.asList(PERSON_A, PERSON_C),
+                new ArrayList<>(selectionModel.getSelectedItems()));
+    }
+
+    @Test
+    public void lazySelectAll_itemsSelectedUntilDeselected() {
+        selectionModel.setSelectionStorage(SelectionStorage.LAZY_SELECT_ALL);
+        selectionModel.selectAll();
+
+        assertTrue(selectionModel.isSelected(PERSON_A));
+        assertTrue(selectionModel.isSelected(PERSON_B));
+        assertTrue(selectionModel.isSelected(PERSON_C));
+        assertEquals(Arrays.asList(PERSON_A, PERSON_B, PERSON_C),
+                currentSelectionCapture.get());
+        assertEquals(Optional.of(PERSON_A),
+                selectionModel.getFirstSelectedItem());
+        assertEquals(1, events.get());
+
+        selectionModel.deselectItems(PERSON_A, PERSON_C);
+
+        assertFalse(selectionModel.isSelected(PERSON_A));
+        assertTrue(selectionModel.isSelected(PERSON_B));
+        assertFalse(selectionModel.isSelected(PERSON_C));
+        assertEquals(Collections.singletonList(PERSON_B),
+                currentSelectionCapture.get());
+        assertEquals(Arrays.asList(PERSON_A, PERSON_B, PERSON_C),
+                oldSelectionCapture.get());
+
+        selectionModel.select(PERSON_A);
+        assertEquals(Arrays.asList(PERSON_A, PERSON_B),
+                currentSelectionCapture.get());
+
+        selectionModel.deselectAll();
+        assertFalse(selectionModel.isSelected(PERSON_B));
+        assertEquals(Collections.emptyList(), currentSelectionCapture.get());
+        assertEquals(Arrays.asList(PERSON_A, PERSON_B),
+                oldSelectionCapture.get());
+        assertEquals(4, events.get());
+    }
+
+    @Test
+    public void lazySelectAll_lazyDataProvider_itemsNotFetched() {
+        AtomicInteger fetches = new AtomicInteger();
+        Grid<Integer> lazyGrid = new Grid<>();
+        lazyGrid.setDataProvider(DataProvider.fromCallbacks(query -> {
+            fetches.incrementAndGet();
+            return IntStream.range(query.getOffset(),
+                    Math.min(query.getOffset() + query.getLimit(), 1000000))
+                    .boxed();
+        }, query -> 1000000));
+        GridMultiSelectionModel<Integer> model = (GridMultiSelectionModel<Integer>) lazyGrid
+                .setSelectionMode(SelectionMode.MULTI);
+        assertFalse(model.isSelectAllCheckboxVisible());
+        model.setSelectionStorage(SelectionStorage.LAZY_SELECT_ALL);
+        assertTrue(model.isSelectAllCheckboxVisible());
+
+        model.selectAll();
+        model.deselect(42);
+
+        assertTrue(model.isSelected(0));
+        assertFalse(model.isSelected(42));
+        assertEquals(Optional.of(0), model.getFirstSelectedItem());
+        assertEquals(1, fetches.get());
+
+        // Counting stops at the page that has the deselected item
+        assertEquals(999999, model.getSelectedItems().size());
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void selectAll_itemAddedAfterwards_itemNotSelected() {
+        List<Person> items = new ArrayList<>(
+                Arrays.asList(PERSON_A, PERSON_B));
+        grid.setItems(items);
+        selectionModel.selectAll();
+
+        Person personD = new Person("d", 4);
+        items.add(personD);
+
+        assertTrue(selectionModel.isSelected(PERSON_A));
+        assertTrue(selectionModel.isSelected(PERSON_B));
+        assertFalse(selectionModel.isSelected(personD));
+        assertEquals(2, selectionModel.getSelectedItems().size());
+    }
+
+    @Test
+    public void lazySelectAll_deselectedItemRemovedOrFiltered_notCountedInSize() {
+        ListDataProvider<Person> dataProvider = new ListDataProvider<>(
+                new ArrayList<>(Arrays.asList(PERSON_A, PERSON_B, PERSON_C)));
+        grid.setDataProvider(dataProvider);
+        selectionModel.setSelectionStorage(SelectionStorage.LAZY_SELECT_ALL);
+        selectionModel.selectAll();
+        selectionModel.deselectItems(PERSON_A, PERSON_B);
+        assertEquals(1, selectionModel.getSelectedItems().size());
+
+        dataProvider.getItems().remove(PERSON_A);
+        dataProvider.refreshAll();
+        assertEquals(1, selectionModel.getSelectedItems().size());
+
+        dataProvider.setFilter(person -> person != PERSON_B);
+        assertEquals(1, selectionModel.getSelectedItems().size());
+        assertEquals(Collections.singleton(PERSON_C),
+                selectionModel.getSelectedItems());
+    }
+
+    @Test
+    public void lazySelectAll_deselectedItemsSelectedAgain_selectAllCheckboxChecked() {
+        UI ui = new UI();
+        ui.add(grid);
+        Element selectionColumn = grid.getElement().getChildren()
+                .filter(child -> "vaadin-grid-flow-selection-column"
+                        .equals(child.getTag()))
+                .findFirst().get();
+        selectionModel.setSelectionStorage(SelectionStorage.LAZY_SELECT_ALL);
+
+        selectionModel.selectAll();
+        assertTrue(selectionColumn.getProperty("selectAll", false));
+
+        selectionModel.deselectItems(PERSON_A, PERSON_B);
+        assertFalse(selectionColumn.getProperty("selectAll", false));
+
+        selectionModel.select(PERSON_A);
+        assertFalse(selectionColumn.getProperty("selectAll", false));
+
+        selectionModel.selectFromClient(PERSON_B);
+        assertTrue(selectionColumn.getProperty("selectAll", false));
+    }
+
+    @Test
+    public void listenerAddedAfterChanges_oldSelectionAndDeltaReported() {
+        Grid<String> customGrid = new Grid<>();
+        GridMultiSelectionModel<String> model = (GridMultiSelectionModel<String>) customGrid
+                .setSelectionMode(SelectionMode.MULTI);
+        customGrid.setItems("Foo", "Bar", "Baz");
+        model.selectItems("Foo", "Bar");
+
+        AtomicReference<MultiSelectionEvent<Grid<String>, String>> eventCapture = new AtomicReference<>();
+        model.addMultiSelectionListener(eventCapture::set);
+        model.updateSelection(Collections.singleton("Baz"),
+                Collections.singleton("Foo"));
+
+        MultiSelectionEvent<Grid<String>, String> event = eventCapture.get();
+        assertEquals(new LinkedHashSet<>(Arrays.asList("Foo", "Bar")),
+                event.getOldSelection());
+        assertTrue(event.getOldSelection().contains("Foo"));
+        assertFalse(event.getOldSelection().contains("Baz"));
+        assertEquals(Collections.singleton("Baz"), event.getAddedSelection());
+        assertEquals(Collections.singleton("Foo"),
+                event.getRemovedSelection());
+        assertEquals(new LinkedHashSet<>(Arrays.asList("Bar", "Baz")),
+                event.getNewSelection());
+    }
+
+    @Test
+    public void listenerChangesSelection_laterListenersSeeSelectionAtFireTime() {
+        selectionModel.select(PERSON_A);
+        selectionModel.addMultiSelectionListener(event -> {
+            if (event.getValue().contains(PERSON_B)) {
+                selectionModel.deselect(PERSON_A);
+            }
+        });
+        List<MultiSelectionEvent<Grid<Person>, Person>> captured = new ArrayList<>();
+        selectionModel.addMultiSelectionListener(captured::add);
+
+        selectionModel.select(PERSON_B);
+
+        assertEquals(2, captured.size());
+        MultiSelectionEvent<Grid<Person>, Person> first = captured.get(1);
+        assertEquals(new LinkedHashSet<>(Arrays.asList(PERSON_A, PERSON_B)),
+                first.getValue());
+        assertEquals(Collections.singleton(PERSON_A), first.getOldValue());
+        assertEquals(Collections.singleton(PERSON_B),
+                first.getAddedSelection());
+
+        MultiSelectionEvent<Grid<Person>, Person> nested = captured.get(0);
+        assertEquals(Collections.singleton(PERSON_B), nested.getValue());
+        assertEquals(new LinkedHashSet<>(Arrays.asList(PERSON_A, PERSON_B)),
+                nested.getOldValue());
+    }
+
+    @Test
+    public void selectAllAndDeselectAll_addedAndRemovedSelectionReported() {
+        selectionModel.select(PERSON_B);
+        AtomicReference<MultiSelectionEvent<Grid<Person>, Person>> eventCapture = new AtomicReference<>();
+        selectionModel.addMultiSelectionListener(eventCapture::set);
+
+        selectionModel.selectAll();
+        assertEquals(new LinkedHashSet<>(Arrays.asList(PERSON_A, PERSON_C)),
+                eventCapture.get().getAddedSelection());
+        assertEquals(Collections.emptySet(),
+                eventCapture.get().getRemovedSelection());
+        assertEquals(Collections.singleton(PERSON_B),
+                eventCapture.get().getOldSelection());
+
+        selectionModel.deselectAll();
+        assertEquals(Collections.emptySet(),
+                eventCapture.get().getAddedSelection());
+        assertEquals(
+                new LinkedHashSet<>(
+                        Arrays.asList(PERSON_A, PERSON_B, PERSON_C)),
+                eventCapture.get().getRemovedSelection());
+        assertEquals(Collections.emptySet(), eventCapture.get().getValue());
+    }
 }
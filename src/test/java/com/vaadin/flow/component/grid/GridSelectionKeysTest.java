@@ -0,0 +1,181 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.grid.Grid.SelectionMode;
+import com.vaadin.flow.component.internal.UIInternals.JavaScriptInvocation;
+import com.vaadin.flow.data.provider.KeyMapper;
+import com.vaadin.flow.data.provider.ListDataProvider;
+import com.vaadin.flow.server.communication.rpc.PublishedServerEventHandlerRpcHandler;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+import static com.vaadin.flow.component.grid.GridConnectorCalls.getConnectorCalls;
+
+public class GridSelectionKeysTest {
+
+    private UI ui;
+    private Grid<String> grid;
+    private GridMultiSelectionModel<String> selectionModel;
+    private KeyMapper<String> keyMapper;
+
+    @Before
+    public void setUp() {
+        ui = new UI();
+        grid = new Grid<>();
+        grid.setItems(IntStream.range(0, 100).mapToObj(String::valueOf));
+        selectionModel = (GridMultiSelectionModel<String>) grid
+                .setSelectionMode(SelectionMode.MULTI);
+        keyMapper = grid.getDataCommunicator().getKeyMapper();
+        ui.add(grid);
+        requestRange(0, 10);
+    }
+
+    @Test
+    public void selectAndDeselectCachedItems_keysSentToClientAndBack() {
+        selectionModel.selectItems("3", "5");
+
+        List<List<Serializable>> calls = getConnectorCalls(
+                "doSelectionForKeys", dumpInvocations());
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals(keyMapper.key("3") + " " + keyMapper.key("5"),
+                joinKeys(calls.get(0)));
+        Assert.assertEquals(false, calls.get(0).get(1));
+
+        // The client reports a deselection with the key it was sent
+        String key = ((JsonArray) calls.get(0).get(0)).getString(0);
+        selectionModel.deselectFromClient(keyMapper.get(key));
+        Assert.assertFalse(selectionModel.isSelected("3"));
+        Assert.assertTrue(selectionModel.isSelected("5"));
+
+        selectionModel.deselect("5");
+        calls = getConnectorCalls("doDeselectionForKeys", dumpInvocations());
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals(keyMapper.key("5"), joinKeys(calls.get(0)));
+    }
+
+    @Test
+    public void selectItemEvictedFromClient_keySkippedAndSelectedWhenSentAgain() {
+        requestRange(50, 10);
+        Assert.assertFalse("The row should have been released",
+                keyMapper.has("3"));
+
+        selectionModel.select("3");
+        List<List<Serializable>> calls = getConnectorCalls(
+                "doSelectionForKeys", dumpInvocations());
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals("", joinKeys(calls.get(0)));
+        Assert.assertFalse("Selecting should not create a key",
+                keyMapper.has("3"));
+
+        List<JavaScriptInvocation> invocations = requestRange(0, 10);
+        String key = keyMapper.key("3");
+        Optional<JsonObject> row = getConnectorCalls("set", invocations)
+                .stream()
+                .flatMap(call -> toObjects((JsonArray) call.get(1)))
+                .filter(json -> key.equals(json.getString("key")))
+                .findFirst();
+        Assert.assertTrue(row.isPresent());
+        Assert.assertTrue(row.get().getBoolean("selected"));
+
+        selectionModel.deselectFromClient(keyMapper.get(key));
+        Assert.assertFalse(selectionModel.isSelected("3"));
+    }
+
+    @Test
+    public void compactKeyMapping_selectAndDeselectFromClient() {
+        List<Integer> items = IntStream.range(0, 100).boxed()
+                .collect(Collectors.toList());
+        Grid<Integer> numericGrid = new Grid<>();
+        numericGrid.setDataProvider(new ListDataProvider<Integer>(items) {
+            @Override
+            public Object getId(Integer item) {
+                return item;
+            }
+        });
+        numericGrid.setCompactKeyMapping(true);
+        numericGrid.setSelectionMode(SelectionMode.MULTI);
+        ui.add(numericGrid);
+        numericGrid.getDataCommunicator().setRequestedRange(0, 10);
+        dumpInvocations();
+
+        String key = numericGrid.getDataCommunicator().getKeyMapper()
+                .key(42);
+        Assert.assertEquals("n42", key);
+
+        callFromClient(numericGrid, "select", key);
+        Assert.assertTrue(numericGrid.getSelectionModel().isSelected(42));
+        Assert.assertFalse(numericGrid.getSelectionModel().isSelected(4));
+
+        callFromClient(numericGrid, "deselect", key);
+        Assert.assertFalse(numericGrid.getSelectionModel().isSelected(42));
+    }
+
+    /*
+     * Invokes a client callable method of the grid with the arguments
+     * deserialized from JSON, like when the client calls the method.
+     */
+    private static void callFromClient(Grid<?> grid, String method,
+            String argument) {
+        JsonArray arguments = Json.createArray();
+        arguments.set(0, argument);
+        PublishedServerEventHandlerRpcHandler.invokeMethod(grid, Grid.class,
+                method, arguments);
+    }
+
+    /*
+     * Requests the rows like the client does, and confirms the update so
+     * that the rows outside the range are released. Returns the invocations
+     * sent to the client.
+     */
+    private List<JavaScriptInvocation> requestRange(int start, int length) {
+        grid.getDataCommunicator().setRequestedRange(start, length);
+        List<JavaScriptInvocation> invocations = dumpInvocations();
+        getConnectorCalls("confirm", invocations)
+                .forEach(call -> grid.getDataCommunicator()
+                        .confirmUpdate((Integer) call.get(0)));
+        return invocations;
+    }
+
+    private List<JavaScriptInvocation> dumpInvocations() {
+        return GridConnectorCalls.dumpInvocations(ui);
+    }
+
+    private static String joinKeys(List<Serializable> call) {
+        JsonArray keys = (JsonArray) call.get(0);
+        return IntStream.range(0, keys.length()).mapToObj(keys::getString)
+                .collect(Collectors.joining(" "));
+    }
+
+    private static Stream<JsonObject> toObjects(
+            JsonArray array) {
+        return IntStream.range(0, array.length()).mapToObj(array::getObject);
+    }
+}
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -193,6 +194,49 @@ public class GridSortingTest {
                 .thenComparing(person -> person.getAddress().getNumber()));
     }
 
+    @Test
+    public void in_memory_sorting_extractedKeys_sameOrder() {
+        setTestSorting();
+        SortKeyComparator<Person> comparator = (SortKeyComparator<Person>) grid
+                .getDataCommunicator().getInMemorySorting();
+        List<Person> expectedOrder = createItems();
+        List<Person> actualOrder = new ArrayList<>(expectedOrder);
+
+        expectedOrder.sort(comparator);
+        comparator.withExtractedKeys(() -> {
+            actualOrder.sort(comparator);
+            return null;
+        });
+
+        Assert.assertEquals(expectedOrder, actualOrder);
+    }
+
+    @Test
+    public void in_memory_sorting_extractedKeys_valueExtractedOncePerItem() {
+        AtomicInteger extractions = new AtomicInteger();
+        Column<Person> column = grid.addColumn(person -> {
+            extractions.incrementAndGet();
+            return person.getAge();
+        });
+        JsonArray sortersArray = Json.createArray();
+        sortersArray.set(0, createSortObject(getColumnId(column), "asc"));
+        callSortersChanged(sortersArray);
+        SortKeyComparator<Person> comparator = (SortKeyComparator<Person>) grid
+                .getDataCommunicator().getInMemorySorting();
+        List<Person> items = createItems();
+
+        comparator.withExtractedKeys(() -> {
+            items.sort(comparator);
+            return null;
+        });
+
+        Assert.assertEquals(items.size(), extractions.get());
+        for (int i = 1; i < items.size(); i++) {
+            Assert.assertTrue(
+                    items.get(i - 1).getAge() <= items.get(i).getAge());
+        }
+    }
+
     @Test
     public void backend_sorting_applied_correctly() {
         setTestSorting();
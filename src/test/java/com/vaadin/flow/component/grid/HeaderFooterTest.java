@@ -30,9 +30,11 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import com.google.common.collect.Lists;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.grid.FooterRow.FooterCell;
 import com.vaadin.flow.component.grid.Grid.Column;
 import com.vaadin.flow.component.grid.HeaderRow.HeaderCell;
+import com.vaadin.flow.data.renderer.Renderer;
 import com.vaadin.flow.data.renderer.TemplateRenderer;
 import com.vaadin.flow.dom.Element;
 
@@ -253,6 +255,88 @@ public class HeaderFooterTest {
                 firstCell, top.getCells().get(0));
     }
 
+    @Test
+    public void toggleSortableAndSetSameTexts_templatesNotRenderedAgain() {
+        UI ui = new UI();
+        ui.add(grid);
+        firstColumn.setHeader("foo").setFooter("bar");
+        runBeforeClientResponse(ui);
+        Element header = getHeaderTemplate(firstColumn.getElement()).get();
+        Element footer = getFooterTemplate(firstColumn.getElement()).get();
+
+        firstColumn.setSortable(true);
+        firstColumn.setHeader("foo").setFooter("bar");
+        runBeforeClientResponse(ui);
+
+        Assert.assertSame(header,
+                getHeaderTemplate(firstColumn.getElement()).get());
+        Assert.assertSame(footer,
+                getFooterTemplate(firstColumn.getElement()).get());
+        Assert.assertThat(header.getProperty("innerHTML"),
+                CoreMatchers.containsString("<vaadin-grid-sorter"));
+
+        firstColumn.setSortable(false);
+        runBeforeClientResponse(ui);
+        Assert.assertEquals("foo", header.getProperty("innerHTML"));
+
+        firstColumn.setFooter("baz");
+        runBeforeClientResponse(ui);
+        Assert.assertNotSame(footer,
+                getFooterTemplate(firstColumn.getElement()).get());
+        Assert.assertSame(header,
+                getHeaderTemplate(firstColumn.getElement()).get());
+    }
+
+    @Test
+    public void setSameHeaderRendererAgain_templateRenderedAgain() {
+        UI ui = new UI();
+        ui.add(grid);
+        Renderer<?> renderer = TemplateRenderer.of("foo");
+        firstColumn.setHeaderRenderer(renderer);
+        runBeforeClientResponse(ui);
+        Element header = getHeaderTemplate(firstColumn.getElement()).get();
+
+        firstColumn.setHeaderRenderer(renderer);
+        runBeforeClientResponse(ui);
+
+        Assert.assertNotSame(header,
+                getHeaderTemplate(firstColumn.getElement()).get());
+    }
+
+    @Test
+    public void removeColumnWithPendingHeader_headerNotRendered() {
+        UI ui = new UI();
+        ui.add(grid);
+        firstColumn.setHeader("foo");
+        grid.removeColumn(firstColumn);
+        runBeforeClientResponse(ui);
+
+        ui.getElement().appendChild(firstColumn.getElement());
+        runBeforeClientResponse(ui);
+
+        Assert.assertFalse(
+                getHeaderTemplate(firstColumn.getElement()).isPresent());
+    }
+
+    @Test
+    public void joinManyHeaderCells_getCellReturnsJoinedCellForEachColumn() {
+        List<Column<String>> columns = IntStream.range(0, 50)
+                .mapToObj(i -> grid.addColumn(str -> str))
+                .collect(Collectors.toList());
+        grid.prependHeaderRow();
+        HeaderRow top = grid.prependHeaderRow();
+        List<Column<String>> toJoin = columns.subList(10, 40);
+        HeaderCell joined = top.join(toJoin.stream().map(top::getCell)
+                .collect(Collectors.toList()));
+
+        toJoin.forEach(column -> Assert.assertSame(
+                "Each joined column should map to the joined cell", joined,
+                top.getCell(column)));
+        Assert.assertNotSame(joined, top.getCell(columns.get(9)));
+        Assert.assertNotSame(joined, top.getCell(columns.get(40)));
+        Assert.assertEquals(3 + 50 - 30 + 1, top.getCells().size());
+    }
+
     @Test
     public void joinTwoFirstFooterCells() {
         FooterRow bottom = grid.prependFooterRow();
@@ -745,6 +829,10 @@ public class HeaderFooterTest {
                 .allMatch(element -> getFooterTemplate(element).isPresent());
     }
 
+    private void runBeforeClientResponse(UI ui) {
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+    }
+
     private Optional<Element> getHeaderTemplate(Element element) {
         return getTemplate(element, "header");
     }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.ListDataProvider;
+
+public class IdentifierKeyMapperTest {
+
+    private Person first;
+    private Person second;
+    private IdentifierKeyMapper<Person> keyMapper;
+
+    @Before
+    public void setUp() {
+        first = new Person("first", 1990);
+        second = new Person("second", 1991);
+        DataProvider<Person, ?> dataProvider = new ListDataProvider<Person>(
+                Arrays.asList(first, second)) {
+            @Override
+            public Object getId(Person item) {
+                return item.getBorn();
+            }
+        };
+        keyMapper = new IdentifierKeyMapper<>(() -> dataProvider);
+    }
+
+    @Test
+    public void compact_keysDerivedFromIdentifiers() {
+        keyMapper.setCompact(true);
+        String key = keyMapper.key(first);
+
+        Assert.assertEquals("n1990", key);
+        Assert.assertEquals(key, keyMapper.key(first));
+        Assert.assertTrue(keyMapper.has(first));
+        Assert.assertFalse(keyMapper.has(second));
+        Assert.assertSame(first, keyMapper.get(key));
+        Assert.assertEquals(1, keyMapper.getNumericItemCount());
+
+        keyMapper.remove(first);
+        Assert.assertFalse(keyMapper.containsKey(key));
+        Assert.assertNull(keyMapper.get(key));
+        Assert.assertEquals(0, keyMapper.getNumericItemCount());
+    }
+
+    @Test
+    public void compact_refresh_updatesMappedItem() {
+        keyMapper.setCompact(true);
+        String key = keyMapper.key(first);
+        Person updated = new Person("updated", 1990);
+        keyMapper.refresh(updated);
+
+        Assert.assertSame(updated, keyMapper.get(key));
+    }
+
+    @Test
+    public void notCompact_defaultKeysUsed() {
+        String key = keyMapper.key(first);
+
+        Assert.assertNotEquals("n1990", key);
+        Assert.assertSame(first, keyMapper.get(key));
+        Assert.assertEquals(0, keyMapper.getNumericItemCount());
+    }
+
+    @Test
+    public void changeMode_mappedItemsRemoved() {
+        String key = keyMapper.key(first);
+        keyMapper.setCompact(true);
+
+        Assert.assertFalse(keyMapper.containsKey(key));
+        Assert.assertFalse(keyMapper.has(first));
+    }
+}
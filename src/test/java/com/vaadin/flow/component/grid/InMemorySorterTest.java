@@ -0,0 +1,170 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.function.SerializableComparator;
+import com.vaadin.flow.function.SerializableSupplier;
+
+public class InMemorySorterTest {
+
+    private InMemorySorter<Person> sorter;
+    private List<Person> items;
+    private AtomicInteger fetches;
+    private SerializableSupplier<Stream<Person>> fetch;
+
+    @Before
+    public void setUp() {
+        sorter = new InMemorySorter<>();
+        sorter.setParallel(true);
+        Random random = new Random(0);
+        items = IntStream.range(0, 10000)
+                .mapToObj(i -> new Person("Person " + random.nextInt(100),
+                        random.nextInt(100)))
+                .collect(Collectors.toList());
+        fetches = new AtomicInteger();
+        fetch = () -> {
+            fetches.incrementAndGet();
+            return items.stream();
+        };
+    }
+
+    @Test
+    public void sortKeyComparator_sameOrderAsStableSort() {
+        SortKeyComparator<Person> comparator = new SortKeyComparator<>();
+        comparator.addKey(Person::getName,
+                new SortKeyComparator.ValueComparator(), false);
+        comparator.addKey(Person::getBorn,
+                new SortKeyComparator.ValueComparator(), true);
+
+        assertSortedLikeStableSort(comparator);
+    }
+
+    @Test
+    public void notParallel_sameOrderAsStableSort() {
+        sorter.setParallel(false);
+        SortKeyComparator<Person> comparator = new SortKeyComparator<>();
+        comparator.addKey(Person::getBorn,
+                new SortKeyComparator.ValueComparator(), false);
+
+        assertSortedLikeStableSort(comparator);
+    }
+
+    @Test
+    public void plainComparator_sameOrderAsStableSort() {
+        assertSortedLikeStableSort(
+                (a, b) -> Integer.compare(a.getBorn(), b.getBorn()));
+    }
+
+    @Test
+    public void clearedAfterVersionRead_sortedItemsNotCached() {
+        SerializableComparator<Person> byBorn = (a, b) -> Integer
+                .compare(a.getBorn(), b.getBorn());
+        int version = sorter.getVersion();
+        sorter.clear();
+
+        List<Person> sorted = sorter.getSortedItems(version, "born", fetch,
+                byBorn, items.size());
+        Assert.assertEquals(items.size(), sorted.size());
+        Assert.assertEquals(1, fetches.get());
+
+        Assert.assertNotSame(sorted, sorter.getSortedItems("born", fetch,
+                byBorn, items.size()));
+        Assert.assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void sameSortOrder_sortedItemsReused() {
+        SerializableComparator<Person> byName = (a, b) -> a.getName()
+                .compareTo(b.getName());
+        SerializableComparator<Person> byBorn = (a, b) -> Integer
+                .compare(a.getBorn(), b.getBorn());
+        List<Person> sorted = sorter.getSortedItems("name", fetch, byName,
+                items.size());
+        sorter.getSortedItems("born", fetch, byBorn, items.size());
+
+        Assert.assertSame(sorted, sorter.getSortedItems("name", fetch,
+                byName, items.size()));
+        // The unsorted items are shared by the sort orders
+        Assert.assertEquals(1, fetches.get());
+
+        sorter.clear();
+        Assert.assertNotSame(sorted, sorter.getSortedItems("name", fetch,
+                byName, items.size()));
+        Assert.assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void firstRows_onlyFirstRowsSortedUntilDeeperRowsNeeded() {
+        SortKeyComparator<Person> sortKeys = new SortKeyComparator<>();
+        sortKeys.addKey(Person::getBorn,
+                new SortKeyComparator.ValueComparator(), true);
+        SerializableComparator<Person> byName = (a, b) -> a.getName()
+                .compareTo(b.getName());
+        for (SerializableComparator<Person> comparator : Arrays
+                .<SerializableComparator<Person>> asList(sortKeys, byName)) {
+            sorter.clear();
+            List<Person> expected = new ArrayList<>(items);
+            expected.sort(comparator);
+
+            List<Person> first = sorter.getSortedItems("key", fetch,
+                    comparator, 50);
+            Assert.assertEquals(50, first.size());
+            assertSameItems(expected.subList(0, 50), first);
+
+            // Twice as many as before found when more are needed
+            List<Person> more = sorter.getSortedItems("key", fetch,
+                    comparator, 60);
+            Assert.assertEquals(100, more.size());
+            assertSameItems(expected.subList(0, 100), more);
+
+            List<Person> all = sorter.getSortedItems("key", fetch,
+                    comparator, items.size() / 2);
+            assertSameItems(expected, all);
+        }
+    }
+
+    private void assertSortedLikeStableSort(
+            SerializableComparator<Person> comparator) {
+        List<Person> expected = new ArrayList<>(items);
+        expected.sort(comparator);
+
+        List<Person> actual = sorter.getSortedItems("key", fetch, comparator,
+                items.size());
+
+        assertSameItems(expected, actual);
+    }
+
+    private static void assertSameItems(List<Person> expected,
+            List<Person> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertSame(expected.get(i), actual.get(i));
+        }
+    }
+}
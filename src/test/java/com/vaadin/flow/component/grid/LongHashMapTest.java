@@ -0,0 +1,70 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongHashMapTest {
+
+    @Test
+    public void putGetRemove_behavesLikeHashMap() {
+        LongHashMap<String> map = new LongHashMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(0);
+
+        for (int i = 0; i < 100000; i++) {
+            // Small range to get plenty of collisions and removals
+            long key = random.nextInt(2000) - 1000;
+            if (random.nextBoolean()) {
+                String value = String.valueOf(i);
+                expected.put(key, value);
+                map.put(key, value);
+            } else {
+                Assert.assertEquals(expected.remove(key) != null,
+                        map.remove(key));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        for (long key = -1000; key < 1000; key++) {
+            Assert.assertEquals(expected.containsKey(key),
+                    map.containsKey(key));
+            Assert.assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void zeroKey_trackedSeparately() {
+        LongHashMap<String> map = new LongHashMap<>();
+        map.put(0, "zero");
+        map.put(Long.MIN_VALUE, "min");
+        Assert.assertEquals("zero", map.get(0));
+        Assert.assertEquals(2, map.size());
+
+        Assert.assertTrue(map.remove(0));
+        Assert.assertFalse(map.containsKey(0));
+        Assert.assertNull(map.get(0));
+        Assert.assertEquals("min", map.get(Long.MIN_VALUE));
+
+        map.clear();
+        Assert.assertEquals(0, map.size());
+        Assert.assertFalse(map.containsKey(Long.MIN_VALUE));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+    @Test
+    public void addContainsRemove_behavesLikeHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(0);
+
+        for (int i = 0; i < 100000; i++) {
+            // Small range to get plenty of collisions and removals
+            long value = random.nextInt(2000) - 1000;
+            if (random.nextBoolean()) {
+                Assert.assertEquals(expected.add(value), set.add(value));
+            } else {
+                Assert.assertEquals(expected.remove(value), set.remove(value));
+            }
+            Assert.assertEquals(expected.size(), set.size());
+        }
+        for (long value = -1000; value < 1000; value++) {
+            Assert.assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void zeroAndExtremeValues() {
+        LongHashSet set = new LongHashSet();
+        Assert.assertTrue(set.add(0));
+        Assert.assertTrue(set.add(Long.MIN_VALUE));
+        Assert.assertTrue(set.add(Long.MAX_VALUE));
+        Assert.assertFalse(set.add(0));
+        Assert.assertEquals(3, set.size());
+
+        Assert.assertTrue(set.remove(0));
+        Assert.assertFalse(set.contains(0));
+        Assert.assertTrue(set.contains(Long.MIN_VALUE));
+        Assert.assertEquals(2, set.size());
+    }
+
+    @Test
+    public void copy_independentOfOriginal() {
+        LongHashSet set = new LongHashSet();
+        set.add(1);
+        LongHashSet copy = set.copy();
+        set.add(2);
+        copy.remove(1);
+
+        Assert.assertTrue(set.contains(1));
+        Assert.assertFalse(copy.contains(2));
+        Assert.assertEquals(0, copy.size());
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.component.grid;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.grid.Grid.Column;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.ListDataProvider;
+import com.vaadin.flow.shared.Registration;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+
+public class RowDataCacheTest {
+
+    private RowDataCache<String> cache;
+    private AtomicInteger generated;
+
+    @Before
+    public void setUp() {
+        DataProvider<String, ?> dataProvider = DataProvider
+                .ofCollection(Arrays.asList("foo", "bar", "baz"));
+        cache = new RowDataCache<>(() -> dataProvider);
+        generated = new AtomicInteger();
+        cache.addDataGenerator((item, json) -> {
+            generated.incrementAndGet();
+            json.put("value", item.toUpperCase());
+        });
+    }
+
+    @Test
+    public void disabled_dataGeneratedEveryTime() {
+        generate("foo");
+        JsonObject json = generate("foo");
+
+        Assert.assertEquals("FOO", json.getString("value"));
+        Assert.assertEquals(2, generated.get());
+        Assert.assertEquals(0, cache.getRowCount());
+    }
+
+    @Test
+    public void enabled_cachedDataReused() {
+        cache.setMaxRows(10);
+        generate("foo");
+        JsonObject json = generate("foo");
+
+        Assert.assertEquals("FOO", json.getString("value"));
+        Assert.assertEquals(1, generated.get());
+    }
+
+    @Test
+    public void destroyData_cachedDataKept() {
+        cache.setMaxRows(10);
+        generate("foo");
+        cache.destroyData("foo");
+        cache.destroyAllData();
+        generate("foo");
+
+        Assert.assertEquals(1, generated.get());
+    }
+
+    @Test
+    public void refreshData_cachedDataDropped() {
+        cache.setMaxRows(10);
+        generate("foo");
+        generate("bar");
+        cache.refreshData("foo");
+        generate("foo");
+        generate("bar");
+
+        Assert.assertEquals(3, generated.get());
+    }
+
+    @Test
+    public void addAndRemoveGenerator_cachedDataDropped() {
+        cache.setMaxRows(10);
+        generate("foo");
+        Registration registration = cache
+                .addDataGenerator((item, json) -> json.put("other", true));
+        JsonObject json = generate("foo");
+        Assert.assertTrue(json.getBoolean("other"));
+        Assert.assertEquals(2, generated.get());
+
+        registration.remove();
+        json = generate("foo");
+        Assert.assertFalse(json.hasKey("other"));
+        Assert.assertEquals(3, generated.get());
+    }
+
+    @Test
+    public void maxRowsExceeded_leastRecentlyUsedDropped() {
+        cache.setMaxRows(2);
+        generate("foo");
+        generate("bar");
+        generate("foo");
+        generate("baz");
+
+        Assert.assertEquals(2, cache.getRowCount());
+        generate("foo");
+        Assert.assertEquals(3, generated.get());
+        generate("bar");
+        Assert.assertEquals(4, generated.get());
+    }
+
+    @Test
+    public void memoryLimitExceeded_leastRecentlyUsedDropped() {
+        cache.setMaxRows(10);
+        // {"value":"FOO"} takes 15 characters, 30 bytes
+        cache.setMaxSize(60);
+        generate("foo");
+        generate("bar");
+        generate("baz");
+
+        Assert.assertEquals(2, cache.getRowCount());
+        generate("foo");
+        Assert.assertEquals(4, generated.get());
+    }
+
+    @Test
+    public void gridItemRefreshedWhileScrolledOut_freshDataWhenScrolledBack() {
+        Person person = new Person("foo", 1990);
+        ListDataProvider<Person> dataProvider = DataProvider.ofItems(person);
+        Grid<Person> grid = createCachingGrid(dataProvider);
+        Column<Person> column = grid.addColumn(Person::getName);
+        new UI().add(grid);
+
+        generate(grid, person);
+        // Scrolled out of view
+        grid.getDataGenerator().destroyData(person);
+        person.setName("bar");
+        dataProvider.refreshItem(person);
+
+        Assert.assertEquals("bar", generate(grid, person)
+                .getString(column.getInternalId()));
+    }
+
+    @Test
+    public void gridRefreshedWhileDetached_freshDataAfterAttach() {
+        Person person = new Person("foo", 1990);
+        ListDataProvider<Person> dataProvider = DataProvider.ofItems(person);
+        Grid<Person> grid = createCachingGrid(dataProvider);
+        Column<Person> column = grid.addColumn(Person::getName);
+        UI ui = new UI();
+        ui.add(grid);
+
+        generate(grid, person);
+        ui.remove(grid);
+        person.setName("bar");
+        dataProvider.refreshAll();
+        ui.add(grid);
+
+        Assert.assertEquals("bar", generate(grid, person)
+                .getString(column.getInternalId()));
+    }
+
+    private Grid<Person> createCachingGrid(
+            ListDataProvider<Person> dataProvider) {
+        Grid<Person> grid = new Grid<>();
+        grid.setDataProvider(dataProvider);
+        grid.setRowDataCacheSize(10);
+        return grid;
+    }
+
+    private JsonObject generate(Grid<Person> grid, Person item) {
+        JsonObject json = Json.createObject();
+        grid.getDataGenerator().generateData(item, json);
+        return json;
+    }
+
+    private JsonObject generate(String item) {
+        JsonObject json = Json.createObject();
+        cache.generateData(item, json);
+        return json;
+    }
+}
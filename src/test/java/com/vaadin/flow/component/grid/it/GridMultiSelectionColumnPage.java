@@ -23,6 +23,8 @@ import java.util.stream.Stream;
 
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.Grid.SelectionMode;
+import com.vaadin.flow.component.grid.GridMultiSelectionModel;
+import com.vaadin.flow.component.grid.GridMultiSelectionModel.SelectionStorage;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.html.NativeButton;
@@ -51,6 +53,7 @@ public class GridMultiSelectionColumnPage extends Div {
         message.setId("selected-item-count");
 
         createLazyGrid();
+        createLazySelectAllGrid();
         createInMemoryGrid();
         createGridWithSwappedDataProvider();
 
@@ -71,6 +74,23 @@ public class GridMultiSelectionColumnPage extends Div {
         add(new H2("Lazy grid"), lazyGrid);
     }
 
+    private void createLazySelectAllGrid() {
+        Grid<String> grid = new Grid<>();
+        grid.setDataProvider(DataProvider.fromCallbacks(query -> {
+            return IntStream
+                    .range(query.getOffset(),
+                            Math.min(query.getOffset() + query.getLimit(),
+                                    ITEM_COUNT))
+                    .mapToObj(Integer::toString);
+        }, query -> ITEM_COUNT));
+        setUp(grid);
+        ((GridMultiSelectionModel<String>) grid.getSelectionModel())
+                .setSelectionStorage(SelectionStorage.LAZY_SELECT_ALL);
+        grid.setId("lazy-select-all-grid");
+
+        add(new H2("Lazy grid selecting all lazily"), grid);
+    }
+
     private void createInMemoryGrid() {
         Grid<String> grid = new Grid<>();
         grid.setItems(
@@ -78,6 +78,38 @@ public class GridMultiSelectionColumnPageIT extends AbstractComponentIT {
                 findElement(By.id("selected-item-count")).getText());
     }
 
+    @Test
+    public void lazySelectAllGrid_selectAll_allItemsSelected() {
+        open();
+        WebElement lazyGrid = findElement(By.id("lazy-select-all-grid"));
+        WebElement selectAllCheckbox = lazyGrid
+                .findElement(By.id("selectAllCheckbox"));
+        Assert.assertNull(
+                "selectAllCheckbox should be visible when selecting all lazily",
+                selectAllCheckbox.getAttribute("hidden"));
+
+        selectAllCheckbox.click();
+        WebElement message = findElement(By.id("selected-item-count"));
+        Assert.assertEquals(
+                "Selected item count: "
+                        + GridMultiSelectionColumnPage.ITEM_COUNT,
+                message.getText());
+        Assert.assertEquals("true", selectAllCheckbox.getAttribute("checked"));
+
+        WebElement selectCheckbox = lazyGrid
+                .findElements(By.tagName("vaadin-checkbox")).get(5);
+        Assert.assertEquals("true", selectCheckbox.getAttribute("checked"));
+        selectCheckbox.click();
+        Assert.assertEquals(
+                "Selected item count: "
+                        + (GridMultiSelectionColumnPage.ITEM_COUNT - 1),
+                message.getText());
+        Assert.assertNull(selectAllCheckbox.getAttribute("checked"));
+
+        selectCheckbox.click();
+        Assert.assertEquals("true", selectAllCheckbox.getAttribute("checked"));
+    }
+
     @Test
     public void gridWithSwappedDataProvider_selectAllIsNotVisible_swapingDataProvidersChangeItsState() {
         open();
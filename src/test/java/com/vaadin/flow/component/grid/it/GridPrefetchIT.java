@@ -0,0 +1,112 @@
+package com.vaadin.flow.component.grid.it;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import com.vaadin.flow.testutil.AbstractComponentIT;
+import com.vaadin.flow.testutil.TestPath;
+
+@TestPath("grid-prefetch")
+public class GridPrefetchIT extends AbstractComponentIT {
+
+    @Test
+    public void prefetchMultiplier_widerRangeRequested() {
+        open();
+        int defaultLength = scrollAndGetRangeLength(500);
+
+        findElement(By.id("prefetch-multiplier")).click();
+        int length = scrollAndGetRangeLength(2000);
+
+        Assert.assertTrue(
+                "Prefetching three screens should request more rows than "
+                        + defaultLength + ", was " + length,
+                length > defaultLength);
+    }
+
+    @Test
+    public void maxPrefetchRows_narrowerRangeRequested() {
+        open();
+        int defaultLength = scrollAndGetRangeLength(500);
+
+        findElement(By.id("max-prefetch-rows")).click();
+        int length = scrollAndGetRangeLength(2000);
+
+        Assert.assertTrue(
+                "Limiting the prefetched rows should request fewer rows than "
+                        + defaultLength + ", was " + length,
+                length < defaultLength);
+    }
+
+    @Test
+    public void adaptivePrefetch_fastScrolling_widerRangeRequested() {
+        open();
+        int defaultLength = scrollAndGetRangeLength(500);
+
+        findElement(By.id("adaptive-prefetch")).click();
+        clearMessages();
+        // Jumping more than a screenful at a time grows the buffer
+        for (int index = 1000; index <= 3000; index += 500) {
+            scrollToIndex(index);
+        }
+        int length = getLastRangeLength(3000);
+
+        Assert.assertTrue(
+                "Scrolling fast with adaptive prefetch should request more rows than "
+                        + defaultLength + ", was " + length,
+                length > defaultLength);
+    }
+
+    /*
+     * Scrolls to the index and gets the length of the range the grid
+     * requests for it.
+     */
+    private int scrollAndGetRangeLength(int index) {
+        clearMessages();
+        scrollToIndex(index);
+        return getLastRangeLength(index);
+    }
+
+    private void clearMessages() {
+        findElement(By.id("clear-messages")).click();
+        waitUntil(driver -> getMessages().isEmpty());
+    }
+
+    private void scrollToIndex(int index) {
+        executeScript("arguments[0].scrollToIndex(arguments[1])",
+                findElement(By.id("prefetch-grid")), index);
+    }
+
+    /*
+     * Waits for the grid to request a range that contains the index, and
+     * gets its length.
+     */
+    private int getLastRangeLength(int index) {
+        waitUntil(driver -> {
+            int[] range = getLastRange();
+            return range != null && range[0] <= index && index < range[1];
+        });
+        int[] range = getLastRange();
+        return range[1] - range[0];
+    }
+
+    private int[] getLastRange() {
+        List<String> messages = getMessages();
+        if (messages.isEmpty()) {
+            return null;
+        }
+        String[] range = messages.get(messages.size() - 1)
+                .substring("Fetch ".length()).split(" - ");
+        return new int[] { Integer.parseInt(range[0]),
+                Integer.parseInt(range[1]) };
+    }
+
+    private List<String> getMessages() {
+        return findElements(By.cssSelector("#messages > span")).stream()
+                .map(WebElement::getText).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,59 @@
+package com.vaadin.flow.component.grid.it;
+
+import java.util.stream.IntStream;
+
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.NativeButton;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.theme.NoTheme;
+
+@Route("grid-prefetch")
+@NoTheme
+public class GridPrefetchPage extends Div {
+    public GridPrefetchPage() {
+        Grid<String> grid = new Grid<>();
+        grid.setId("prefetch-grid");
+
+        VerticalLayout messages = new VerticalLayout();
+        messages.setId("messages");
+
+        DataProvider<String, Void> dataProvider = DataProvider
+                .fromCallbacks(query -> {
+                    int offset = query.getOffset();
+                    int limit = query.getLimit();
+
+                    messages.add(new Span(
+                            "Fetch " + offset + " - " + (offset + limit)));
+
+                    return IntStream.range(0, 5000).skip(offset).limit(limit)
+                            .mapToObj(Integer::toString);
+                }, query -> 5000);
+
+        grid.setDataProvider(dataProvider);
+
+        grid.addColumn(item -> item).setHeader("Data");
+
+        NativeButton multiplierButton = new NativeButton(
+                "Prefetch three screens", e -> grid.setPrefetchMultiplier(3));
+        multiplierButton.setId("prefetch-multiplier");
+
+        NativeButton maxRowsButton = new NativeButton("Prefetch 10 rows",
+                e -> grid.setMaxPrefetchRows(10));
+        maxRowsButton.setId("max-prefetch-rows");
+
+        NativeButton adaptiveButton = new NativeButton("Adaptive prefetch",
+                e -> grid.setAdaptivePrefetch(true));
+        adaptiveButton.setId("adaptive-prefetch");
+
+        NativeButton clearButton = new NativeButton("Clear messages",
+                e -> messages.removeAll());
+        clearButton.setId("clear-messages");
+
+        add(grid, multiplierButton, maxRowsButton, adaptiveButton,
+                clearButton, messages);
+    }
+}
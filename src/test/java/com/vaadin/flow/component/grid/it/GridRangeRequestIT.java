@@ -0,0 +1,54 @@
+package com.vaadin.flow.component.grid.it;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import com.vaadin.flow.testutil.AbstractComponentIT;
+import com.vaadin.flow.testutil.TestPath;
+
+@TestPath("grid-range-request")
+public class GridRangeRequestIT extends AbstractComponentIT {
+
+    @Test
+    public void gridRemovedDuringDebounce_rangeNotRequested() {
+        open();
+        scrollWithoutWaiting(2500);
+
+        findElement(By.id("remove-grid")).click();
+        waitForDebounce();
+
+        Assert.assertEquals("No rows should be requested for a removed grid",
+                0, getMessages().size());
+    }
+
+    /*
+     * Scrolls the grid once the initial rows have been fetched, so that the
+     * range for the new position waits for the debounce delay.
+     */
+    private void scrollWithoutWaiting(int index) {
+        waitUntil(driver -> !getMessages().isEmpty());
+        findElement(By.id("clear-messages")).click();
+        waitUntil(driver -> getMessages().isEmpty());
+
+        executeScript("arguments[0].scrollToIndex(arguments[1])",
+                findElement(By.id("data-grid")), index);
+    }
+
+    private void waitForDebounce() {
+        try {
+            Thread.sleep(3000);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private List<String> getMessages() {
+        return findElements(By.cssSelector("#messages > span")).stream()
+                .map(WebElement::getText).collect(Collectors.toList());
+    }
+}
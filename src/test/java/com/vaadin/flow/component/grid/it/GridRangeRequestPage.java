@@ -0,0 +1,51 @@
+package com.vaadin.flow.component.grid.it;
+
+import java.util.stream.IntStream;
+
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.NativeButton;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.theme.NoTheme;
+
+@Route("grid-range-request")
+@NoTheme
+public class GridRangeRequestPage extends Div {
+    public GridRangeRequestPage() {
+        Grid<String> grid = new Grid<>();
+        grid.setId("data-grid");
+        grid.setRangeRequestDebounce(2000);
+
+        VerticalLayout messages = new VerticalLayout();
+        messages.setId("messages");
+
+        DataProvider<String, Void> dataProvider = DataProvider
+                .fromCallbacks(query -> {
+                    int offset = query.getOffset();
+                    int limit = query.getLimit();
+
+                    messages.add(new Span(
+                            "Fetch " + offset + " - " + (offset + limit)));
+
+                    return IntStream.range(0, 5000).skip(offset).limit(limit)
+                            .mapToObj(Integer::toString);
+                }, query -> 5000);
+
+        grid.setDataProvider(dataProvider);
+
+        grid.addColumn(item -> item).setHeader("Data");
+
+        NativeButton removeButton = new NativeButton("Remove grid",
+                e -> remove(grid));
+        removeButton.setId("remove-grid");
+
+        NativeButton clearButton = new NativeButton("Clear messages",
+                e -> messages.removeAll());
+        clearButton.setId("clear-messages");
+
+        add(grid, removeButton, clearButton, messages);
+    }
+}